@@ -0,0 +1,68 @@
+#!/bin/bash
+# Submits an import to a running import service (aws-api-import.sh --server) and waits for it to complete.
+# The service address defaults to http://localhost:8421 and can be set with AWS_API_IMPORT_SERVER.
+
+server=${AWS_API_IMPORT_SERVER:-http://localhost:8421}
+
+usage() {
+    echo "Usage: $(basename $0) (--create | --update API_ID) [--deploy STAGE] [--force-deploy] [--region REGION] [--raml-config FILE] FILE" >&2
+    exit 1
+}
+
+abs_path() {
+    case "$1" in
+        /*) echo "$1" ;;
+        *) echo "$PWD/$1" ;;
+    esac
+}
+
+json_string() {
+    printf '"%s"' "$(printf '%s' "$1" | sed -e 's/\\/\\\\/g' -e 's/"/\\"/g')"
+}
+
+create=false
+force_deploy=false
+while [ $# -gt 0 ]; do
+    case "$1" in
+        --create|-c) create=true ;;
+        --update|-u) shift; api_id=$1 ;;
+        --deploy|-d) shift; stage=$1 ;;
+        --force-deploy) force_deploy=true ;;
+        --region|-r) shift; region=$1 ;;
+        --raml-config) shift; raml_config=$(abs_path "$1") ;;
+        -*) echo "Option $1 is not supported by the import service" >&2; usage ;;
+        *) file=$(abs_path "$1") ;;
+    esac
+    shift
+done
+
+[ -n "$file" ] || usage
+[ "$create" = true ] || [ -n "$api_id" ] || usage
+
+job="{\"file\":$(json_string "$file"),\"create\":$create"
+[ -n "$api_id" ] && job="$job,\"apiId\":$(json_string "$api_id")"
+[ -n "$stage" ] && job="$job,\"stage\":$(json_string "$stage"),\"forceDeploy\":$force_deploy"
+[ -n "$region" ] && job="$job,\"region\":$(json_string "$region")"
+[ -n "$raml_config" ] && job="$job,\"ramlConfig\":$(json_string "$raml_config")"
+job="$job}"
+
+response=$(curl -sS -f -X POST -H "Content-Type: application/json" --data "$job" "$server/jobs") || {
+    echo "Could not submit import to $server" >&2
+    exit 1
+}
+id=$(echo "$response" | sed -n 's/.*"id":"\([^"]*\)".*/\1/p')
+
+while true; do
+    response=$(curl -sS -f "$server/jobs/$id") || exit 1
+    status=$(echo "$response" | sed -n 's/.*"status":"\([A-Z]*\)".*/\1/p')
+
+    case "$status" in
+        SUCCEEDED|FAILED) break ;;
+    esac
+    sleep 0.2
+done
+
+curl -sS "$server/jobs/$id/log"
+echo "$response"
+
+[ "$status" = SUCCEEDED ]
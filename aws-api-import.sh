@@ -1,4 +1,16 @@
 #!/bin/bash
 root=$(dirname $(perl -MCwd=abs_path -e 'print abs_path(shift)' $0))
 
-java -jar $root/target/aws-apigateway-importer-1.0.3-SNAPSHOT-jar-with-dependencies.jar "$@"
\ No newline at end of file
+# hand the import to a running import service instead of starting a new JVM, unless starting the service itself
+forward=$AWS_API_IMPORT_SERVER
+for arg in "$@"; do
+    if [ "$arg" == "--server" ]; then
+        forward=
+    fi
+done
+
+if [ -n "$forward" ]; then
+    exec $root/aws-api-import-client.sh "$@"
+fi
+
+java -jar $root/target/aws-apigateway-importer-1.0.3-SNAPSHOT-jar-with-dependencies.jar "$@"
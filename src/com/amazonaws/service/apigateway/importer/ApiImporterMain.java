@@ -20,17 +20,33 @@ import com.amazonaws.auth.EnvironmentVariableCredentialsProvider;
 import com.amazonaws.auth.InstanceProfileCredentialsProvider;
 import com.amazonaws.auth.SystemPropertiesCredentialsProvider;
 import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import com.amazonaws.service.apigateway.importer.batch.BatchImporter;
+import com.amazonaws.service.apigateway.importer.batch.ImportJob;
+import com.amazonaws.service.apigateway.importer.batch.ImportJobResult;
 import com.amazonaws.service.apigateway.importer.config.ApiImporterDefaultModule;
 import com.amazonaws.service.apigateway.importer.config.AwsConfig;
 import com.amazonaws.service.apigateway.importer.impl.ApiGatewayRamlFileImporter;
 import com.amazonaws.service.apigateway.importer.impl.ApiGatewaySwaggerFileImporter;
+import com.amazonaws.service.apigateway.importer.impl.DefinitionCache;
+import com.amazonaws.service.apigateway.importer.impl.RamlLoader;
+import com.amazonaws.service.apigateway.importer.impl.SchemaTransformer;
+import com.amazonaws.service.apigateway.importer.impl.sdk.ApiGatewaySdkApiImporter;
+import com.amazonaws.service.apigateway.importer.impl.sdk.ApiGatewaySdkRamlApiImporter;
+import com.amazonaws.service.apigateway.importer.impl.sdk.ApiSnapshotStore;
+import com.amazonaws.service.apigateway.importer.server.ImportServer;
+import com.amazonaws.service.apigateway.importer.server.JobLogAppender;
+import com.amazonaws.service.apigateway.importer.util.StartupTimer;
 import com.amazonaws.util.json.JSONException;
 import com.amazonaws.util.json.JSONObject;
 import com.amazonaws.util.json.JSONTokener;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.name.Names;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -42,11 +58,20 @@ import org.apache.log4j.PatternLayout;
 
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class ApiImporterMain {
     private static final Log LOG = LogFactory.getLog(ApiImporterMain.class);
     private static final String CMD_NAME = "aws-api-import";
+    private static final double DEFAULT_MAX_REQUESTS_PER_SECOND = 5;
 
     @Parameter(names = {"--update", "-u"}, description = "API ID to import swagger into an existing API")
     private String apiId;
@@ -57,24 +82,100 @@ public class ApiImporterMain {
     @Parameter(description = "Path to API definition file to import")
     private List<String> files;
 
-    @Parameter(names = {"--deploy", "-d"}, description = "Stage used to deploy the API (optional)")
+    @Parameter(names = {"--deploy", "-d"}, description = "Stage used to deploy the API. Comma-separated stages are deployed " +
+            "concurrently, colons separate waves deployed in order, e.g. dev,qa:prod (optional)")
     private String deploymentLabel;
 
+    @Parameter(names = {"--force-deploy"}, description = "Deploy even if the stage is already deployed from the same definition")
+    private boolean forceDeploy = false;
+
     @Parameter(names = {"--test", "-t"}, description = "Delete the API after import (create only)")
     private boolean cleanup = false;
 
     @Parameter(names = {"--region", "-r"}, description = "AWS region to use (optional)")
     private String region;
 
+    @Parameter(names = {"--regions"}, description = "Comma-separated AWS regions the API is imported into concurrently. " +
+            "When updating, --update takes the comma-separated API IDs of the regions, in the same order (optional)")
+    private List<String> regions;
+
     @Parameter(names = {"--profile", "-p"}, description = "AWS CLI profile to use (optional)")
     private String profile = "default";
 
     @Parameter(names = {"--raml-config"}, description = "RAML file for API Gateway metadata (optional)")
     private String configFile;
 
+    @Parameter(names = {"--include"}, description = "Comma-separated globs of the definition paths to import, e.g. " +
+            "/billing/**. Cleanup only deletes resources within the selected paths (optional)")
+    private List<String> include;
+
+    @Parameter(names = {"--exclude"}, description = "Comma-separated globs of the definition paths left out of the import " +
+            "and cleanup (optional)")
+    private List<String> exclude;
+
+    @Parameter(names = {"--tags"}, description = "Comma-separated tags of the Swagger operations to import. Nothing is " +
+            "deleted when importing by tag (optional)")
+    private List<String> tags;
+
+    @Parameter(names = {"--raml-concurrency"}, description = "Number of sibling RAML resources imported concurrently")
+    private int ramlConcurrency = ApiGatewaySdkRamlApiImporter.DEFAULT_CONCURRENCY;
+
+    @Parameter(names = {"--cleanup-concurrency"}, description = "Number of removed methods, resources or models deleted concurrently")
+    private int cleanupConcurrency = ApiGatewaySdkApiImporter.DEFAULT_CLEANUP_CONCURRENCY;
+
+    @Parameter(names = {"--journal"}, description = "File used to record progress of a new import (optional)")
+    private String journalFile;
+
+    @Parameter(names = {"--resume"}, description = "Resume a failed import from the journal it left behind")
+    private String resumeJournalFile;
+
+    @Parameter(names = {"--rollback"}, description = "Delete the API if creating it fails instead of keeping it for --resume")
+    private boolean rollback = false;
+
+    @Parameter(names = {"--snapshot-dir"}, description = "Directory used to keep a snapshot of the state applied to each API, " +
+            "allowing updates to skip listing the API (optional)")
+    private String snapshotDir;
+
+    @Parameter(names = {"--cache-dir"}, description = "Directory used to cache parsed definitions and generated model " +
+            "schemas between runs (optional)")
+    private String cacheDir;
+
+    @Parameter(names = {"--since"}, description = "Previous version of the API definition file. Only the changes since " +
+            "that version are applied (update only, optional)")
+    private String previousFile;
+
+    @Parameter(names = {"--batch"}, description = "JSON manifest of APIs to import concurrently. Each entry has a 'file', " +
+            "either an 'apiId' or 'create': true, and optionally a 'stage', 'region', 'ramlConfig', 'include', 'exclude' " +
+            "and 'tags'")
+    private String batchFile;
+
+    @Parameter(names = {"--threads"}, description = "Number of APIs imported concurrently in batch mode")
+    private int threads = 4;
+
+    @Parameter(names = {"--max-rps"}, description = "Maximum requests per second sent to each region. A single import is " +
+            "only limited when this is set or --raml-concurrency is above 1 (default 5)")
+    private Double maxRequestsPerSecond;
+
+    @Parameter(names = {"--report"}, description = "File the JSON report of a batch is written to (optional)")
+    private String reportFile;
+
+    @Parameter(names = {"--server"}, description = "Run as a long-running service accepting import jobs over HTTP")
+    private boolean server;
+
+    @Parameter(names = {"--port"}, description = "Local port the service listens on")
+    private int port = 8421;
+
+    @Parameter(names = {"--log-dir"}, description = "Directory of the job logs kept by the service (optional)")
+    private String logDir;
+
+    @Parameter(names = {"--verbose", "-v"}, description = "Log how long each step took before the first call to API Gateway")
+    private boolean verbose;
+
     @Parameter(names = "--help", help = true)
     private boolean help;
 
+    private final StartupTimer timer = new StartupTimer();
+
     public static void main(String[] args) {
         bootstrap();
         ApiImporterMain main = new ApiImporterMain();
@@ -90,6 +191,9 @@ public class ApiImporterMain {
     }
 
     public void execute(JCommander jCommander) {
+        timer.setEnabled(verbose);
+        timer.mark("parse arguments");
+
         if (help) {
             jCommander.usage();
             return;
@@ -100,15 +204,16 @@ public class ApiImporterMain {
             System.exit(1);
         }
 
-        // use default AWS credentials provider chain
-        AWSCredentialsProvider credentialsProvider = new AWSCredentialsProviderChain(
+        // use default AWS credentials provider chain. Providers are only consulted on the first call, in order, until one
+        // resolves, so the instance metadata service is not queried when earlier providers have credentials
+        AWSCredentialsProvider credentialsProvider = timer.time(new AWSCredentialsProviderChain(
                 new EnvironmentVariableCredentialsProvider(),
                 new SystemPropertiesCredentialsProvider(),
                 new ProfileCredentialsProvider(profile),
-                new InstanceProfileCredentialsProvider());
+                new InstanceProfileCredentialsProvider()));
 
         // if region parameter is not specified, attempt to load configured region from profile
-        if (StringUtils.isBlank(region)) {
+        if (StringUtils.isBlank(region) && regions == null) {
             AwsConfig config = new AwsConfig(profile);
             try {
                 config.load();
@@ -118,17 +223,48 @@ public class ApiImporterMain {
                 System.exit(1);
             }
             region = config.getRegion();
+            timer.mark("load region");
+        }
+
+        if (server) {
+            if (!startServer(credentialsProvider)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (batchFile != null) {
+            if (!importBatch(credentialsProvider)) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (regions != null) {
+            if (!importRegions(credentialsProvider)) {
+                System.exit(1);
+            }
+            return;
         }
 
         try {
-            Injector injector = Guice.createInjector(new ApiImporterDefaultModule(credentialsProvider, region));
+            Injector injector = Guice.createInjector(new ApiImporterDefaultModule(credentialsProvider, region, createRateLimiter()),
+                                                     getOptionsModule());
+            timer.mark("create injector");
 
-            String fileName = files.get(0);
+            final ImportJournal journal = createJournal();
+
+            String fileName = journal.isResumed() ? journal.getDefinition().get() : files.get(0);
 
             if (FilenameUtils.getExtension(fileName).equals("raml")) {
                 final JSONObject configData;
 
                 RamlApiFileImporter importer = injector.getInstance(ApiGatewayRamlFileImporter.class);
+                timer.mark("create importer");
+
+                if (journal.isResumed()) {
+                    configFile = journal.getConfig().orElse(null);
+                }
 
                 try {
                     configData = configFile == null ? null : new JSONObject(new JSONTokener(new FileReader(configFile)));
@@ -138,11 +274,20 @@ public class ApiImporterMain {
                     return;
                 }
 
-                importRaml(fileName, configData, importer);
+                try {
+                    importRaml(fileName, configData, importer, journal);
+                } finally {
+                    logRequestStats(importer.getRequestStats());
+                }
             } else {
                 SwaggerApiFileImporter importer = injector.getInstance(ApiGatewaySwaggerFileImporter.class);
+                timer.mark("create importer");
 
-                importSwagger(fileName, importer);
+                try {
+                    importSwagger(fileName, importer, journal);
+                } finally {
+                    logRequestStats(importer.getRequestStats());
+                }
             }
         } catch (Throwable t) {
             LOG.error("Error importing API definition", t);
@@ -150,39 +295,311 @@ public class ApiImporterMain {
         }
     }
 
-    private void importSwagger(String fileName, SwaggerApiFileImporter importer) {
-        if (createNew) {
-            apiId = importer.importApi(fileName);
+    private Module getOptionsModule() {
+        // shared by the injectors of every region, so a definition imported to several regions is built once
+        final RamlLoader ramlLoader = new RamlLoader();
+
+        return binder -> {
+            if (snapshotDir != null) {
+                binder.bind(ApiSnapshotStore.class).toInstance(new ApiSnapshotStore(new File(snapshotDir)));
+            }
+            if (cacheDir != null) {
+                binder.bind(DefinitionCache.class).toInstance(new DefinitionCache(new File(cacheDir)));
+            }
+            binder.bind(RamlLoader.class).toInstance(ramlLoader);
+            binder.bind(StartupTimer.class).toInstance(timer);
+            binder.bindConstant().annotatedWith(Names.named("ramlConcurrency")).to(ramlConcurrency);
+            binder.bindConstant().annotatedWith(Names.named("cleanupConcurrency")).to(cleanupConcurrency);
+        };
+    }
+
+    /*
+     * Import all APIs of the batch manifest
+     * @return true if all imports succeeded
+     */
+    private boolean importBatch(AWSCredentialsProvider credentialsProvider) {
+        final List<ImportJobResult> results;
+
+        try (BatchImporter importer = new BatchImporter(credentialsProvider, region, threads, getMaxRequestsPerSecond(),
+                                                        getJournalDirectory(), getOptionsModule())) {
+            final List<ImportJob> jobs = BatchImporter.readManifest(new File(batchFile));
+
+            LOG.info(String.format("Importing %d APIs with %d workers", jobs.size(), threads));
+
+            results = importer.importAll(jobs);
+
+            if (reportFile != null) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), results);
+            }
+        } catch (Throwable t) {
+            LOG.error("Error importing batch " + batchFile, t);
+            return false;
+        }
+
+        BatchImporter.logReport(results);
+
+        return results.stream().allMatch(ImportJobResult::isSucceeded);
+    }
+
+    /*
+     * Import the definition into every region concurrently. The definition is parsed once and shared by all regions,
+     * while each region uses its own clients and rate limiter
+     * @return true if the imports into all regions succeeded
+     */
+    private boolean importRegions(AWSCredentialsProvider credentialsProvider) {
+        final List<String> apiIds = createNew ? null : Arrays.asList(apiId.split(","));
+        final List<ImportJob> jobs = new ArrayList<>();
+
+        for (int i = 0; i < regions.size(); i++) {
+            final ImportJob job = new ImportJob();
+            job.setFile(files.get(0));
+            job.setCreate(createNew);
+            job.setApiId(createNew ? null : apiIds.get(i).trim());
+            job.setRegion(regions.get(i).trim());
+            job.setStage(deploymentLabel);
+            job.setForceDeploy(forceDeploy);
+            job.setRamlConfig(configFile);
+            job.setInclude(include);
+            job.setExclude(exclude);
+            job.setTags(tags);
+            jobs.add(job);
+        }
+
+        final List<ImportJobResult> results;
+        final long start = System.currentTimeMillis();
+
+        try (BatchImporter importer = new BatchImporter(credentialsProvider, region, Math.max(threads, regions.size()),
+                                                        getMaxRequestsPerSecond(), getJournalDirectory(), getOptionsModule())) {
+            LOG.info(String.format("Importing %s into %d regions: %s", files.get(0), regions.size(), String.join(", ", regions)));
+
+            results = importer.importAll(jobs);
+
+            if (reportFile != null) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), results);
+            }
+        } catch (Throwable t) {
+            LOG.error("Error importing " + files.get(0) + " into regions " + regions, t);
+            return false;
+        }
+
+        BatchImporter.logReport(results);
+        LOG.info(String.format("Imported into %d regions in %dms", regions.size(), System.currentTimeMillis() - start));
+
+        return results.stream().allMatch(ImportJobResult::isSucceeded);
+    }
+
+    /*
+     * Start the import service. The clients and parsers are initialized up front so that jobs only pay for their own work
+     * @return true if the service started
+     */
+    private boolean startServer(AWSCredentialsProvider credentialsProvider) {
+        final File logDirectory = logDir != null ? new File(logDir) : new File(System.getProperty("java.io.tmpdir"), CMD_NAME + "-logs");
+        // the journals of failed jobs are kept along with their logs
+        final BatchImporter importer = new BatchImporter(credentialsProvider, region, threads, getMaxRequestsPerSecond(),
+                                                         logDirectory, getOptionsModule());
+
+        try {
+            final ImportServer importServer = new ImportServer(importer, logDirectory);
+
+            importer.initialize(region);
+            SchemaTransformer.initialize();
+
+            Logger.getRootLogger().addAppender(new JobLogAppender(new PatternLayout("%d %p - %m%n")));
+
+            importServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                importServer.stop();
+                importer.close();
+            }));
+        } catch (Throwable t) {
+            LOG.error("Error starting import service", t);
+            importer.close();
+            return false;
+        }
+
+        return true;
+    }
+
+    private double getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond != null ? maxRequestsPerSecond : DEFAULT_MAX_REQUESTS_PER_SECOND;
+    }
+
+    /*
+     * A single import sends requests one at a time unless RAML resources are imported concurrently, in which case they
+     * are limited like those of a batch
+     */
+    private RateLimiter createRateLimiter() {
+        return maxRequestsPerSecond != null || ramlConcurrency > 1 ? RateLimiter.create(getMaxRequestsPerSecond()) : null;
+    }
+
+    // the journals of the failed jobs of a batch are kept next to its report
+    private File getJournalDirectory() {
+        return reportFile != null ? new File(reportFile).getAbsoluteFile().getParentFile() : null;
+    }
+
+    private ImportJournal createJournal() throws IOException {
+        if (resumeJournalFile != null) {
+            return ImportJournal.load(new File(resumeJournalFile));
+        }
+
+        if (!createNew) {
+            return ImportJournal.inMemory();
+        }
+
+        final File file = journalFile != null ? new File(journalFile) : File.createTempFile(CMD_NAME + "-", ".journal");
+        final ImportJournal journal = ImportJournal.create(file);
+
+        journal.recordDefinition(files.get(0));
+        if (configFile != null) {
+            journal.recordConfig(configFile);
+        }
+
+        return journal;
+    }
+
+    private void importSwagger(String fileName, SwaggerApiFileImporter importer, ImportJournal journal) {
+        final ImportScope scope = new ImportScope(include, exclude, tags);
+
+        if (journal.isResumed()) {
+            apiId = runJournaled(journal, importer::deleteApi, () -> importer.resumeApi(fileName, journal, scope));
+        } else if (createNew) {
+            apiId = runJournaled(journal, importer::deleteApi, () -> importer.importApi(fileName, journal, scope));
 
             if (cleanup) {
                 importer.deleteApi(apiId);
             }
+        } else if (previousFile != null) {
+            importer.updateApi(apiId, fileName, previousFile, scope);
         } else {
-            importer.updateApi(apiId, fileName);
+            importer.updateApi(apiId, fileName, scope);
         }
 
         if (!StringUtils.isBlank(deploymentLabel)) {
-            importer.deploy(apiId, deploymentLabel);
+            importer.deploy(apiId, DeploymentPlan.parse(deploymentLabel), fileName, scope, forceDeploy);
         }
     }
 
-    private void importRaml(String fileName, JSONObject configData, RamlApiFileImporter importer) {
-        if (createNew) {
-            apiId = importer.importApi(fileName, configData);
+    private void logRequestStats(RequestStats stats) {
+        LOG.info(String.format("Sent %d requests to API Gateway, %d bytes", stats.getRequests(), stats.getRequestBytes()));
+    }
+
+    private void importRaml(String fileName, JSONObject configData, RamlApiFileImporter importer, ImportJournal journal) {
+        final ImportScope scope = new ImportScope(include, exclude, tags);
+
+        if (journal.isResumed()) {
+            apiId = runJournaled(journal, importer::deleteApi, () -> importer.resumeApi(fileName, configData, journal, scope));
+        } else if (createNew) {
+            apiId = runJournaled(journal, importer::deleteApi, () -> importer.importApi(fileName, configData, journal, scope));
 
             if (cleanup) {
                 importer.deleteApi(apiId);
             }
         } else {
-            importer.updateApi(apiId, fileName, configData);
+            if (previousFile != null) {
+                LOG.warn("--since is not supported for RAML definitions, updating the whole API");
+            }
+            importer.updateApi(apiId, fileName, configData, scope);
         }
 
         if (!StringUtils.isBlank(deploymentLabel)) {
-            importer.deploy(apiId, deploymentLabel);
+            importer.deploy(apiId, DeploymentPlan.parse(deploymentLabel), fileName, configData, scope, forceDeploy);
+        }
+    }
+
+    /*
+     * Run a journaled import. On failure the API is either kept so the import can be resumed from the journal,
+     * or deleted if rollback was requested
+     */
+    private String runJournaled(ImportJournal journal, Consumer<String> deleteApi, Supplier<String> importApi) {
+        final String id;
+        try {
+            id = importApi.get();
+        } catch (Throwable t) {
+            final Optional<String> failedApiId = journal.getApiId();
+
+            if (rollback && failedApiId.isPresent()) {
+                LOG.error("Error importing API " + failedApiId.get() + ", rolling back");
+                deleteApi.accept(failedApiId.get());
+                journal.delete();
+            } else if (journal.getFile().isPresent() && failedApiId.isPresent()) {
+                LOG.error(String.format("Error importing API %s. Progress has been saved, to continue run: %s --resume %s",
+                                        failedApiId.get(), CMD_NAME, journal.getFile().get()));
+            }
+            throw t;
         }
+
+        journal.delete();
+        return id;
     }
 
     private boolean validateArgs() {
+        if (!StringUtils.isBlank(deploymentLabel)) {
+            try {
+                DeploymentPlan.parse(deploymentLabel);
+            } catch (IllegalArgumentException e) {
+                LOG.error(e.getMessage());
+                return false;
+            }
+        }
+
+        if (tags != null && files != null && files.stream().anyMatch(f -> f.endsWith(".raml"))) {
+            LOG.error("--tags is not supported for RAML definitions");
+            return false;
+        }
+
+        if (ramlConcurrency < 1) {
+            LOG.error("--raml-concurrency must be at least 1");
+            return false;
+        }
+
+        if (cleanupConcurrency < 1) {
+            LOG.error("--cleanup-concurrency must be at least 1");
+            return false;
+        }
+
+        if (getMaxRequestsPerSecond() <= 0) {
+            LOG.error("--max-rps must be greater than 0");
+            return false;
+        }
+
+        if (server) {
+            return (files == null || files.isEmpty()) && apiId == null && !createNew && resumeJournalFile == null
+                    && batchFile == null && threads > 0;
+        }
+
+        if (batchFile != null) {
+            if (!new File(batchFile).exists()) {
+                LOG.error(String.format("Could not load file '%s'", batchFile));
+                return false;
+            }
+            return (files == null || files.isEmpty()) && apiId == null && !createNew && resumeJournalFile == null
+                    && threads > 0;
+        }
+
+        if (regions != null) {
+            if (regions.isEmpty() || files == null || files.isEmpty() || !new File(files.get(0)).exists()) {
+                return false;
+            }
+            if (apiId != null && apiId.split(",").length != regions.size()) {
+                LOG.error("--update requires one API ID for each of the --regions");
+                return false;
+            }
+            if (resumeJournalFile != null || previousFile != null || cleanup) {
+                LOG.error("--resume, --since and --test are not supported with --regions");
+                return false;
+            }
+            return createNew != (apiId != null) && threads > 0;
+        }
+
+        if (resumeJournalFile != null) {
+            if (!new File(resumeJournalFile).exists()) {
+                LOG.error(String.format("Could not load journal '%s'", resumeJournalFile));
+                return false;
+            }
+            return apiId == null && !createNew && !cleanup;
+        }
+
         if ((apiId == null && !createNew) || files == null || files.isEmpty()) {
             return false;
         }
@@ -192,6 +609,17 @@ public class ApiImporterMain {
             return false;
         }
 
+        if (previousFile != null) {
+            if (apiId == null) {
+                LOG.error("--since is only supported when updating an API");
+                return false;
+            }
+            if (!new File(previousFile).exists()) {
+                LOG.error(String.format("Could not load file '%s'", previousFile));
+                return false;
+            }
+        }
+
         final String fileName = files.get(0);
         
         if (!new File(fileName).exists()) {
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Stages to deploy an API to, in waves. The stages of a wave are deployed concurrently, and a wave is only deployed
+ * once every stage of the previous wave succeeded.
+ *
+ * Written as comma-separated stages, with waves separated by colons: {@code dev,qa:prod} deploys dev and qa, then prod
+ */
+public class DeploymentPlan {
+    private static final Log LOG = LogFactory.getLog(DeploymentPlan.class);
+
+    private final List<List<String>> waves;
+
+    private DeploymentPlan(List<List<String>> waves) {
+        this.waves = waves;
+    }
+
+    public static DeploymentPlan parse(String plan) {
+        final List<List<String>> waves = new ArrayList<>();
+
+        for (String wave : StringUtils.split(plan, ':')) {
+            final List<String> stages = new ArrayList<>();
+
+            for (String stage : StringUtils.split(wave, ',')) {
+                if (StringUtils.isNotBlank(stage)) {
+                    stages.add(stage.trim());
+                }
+            }
+
+            if (!stages.isEmpty()) {
+                waves.add(Collections.unmodifiableList(stages));
+            }
+        }
+
+        if (waves.isEmpty()) {
+            throw new IllegalArgumentException("No stages to deploy to in '" + plan + "'");
+        }
+
+        return new DeploymentPlan(Collections.unmodifiableList(waves));
+    }
+
+    public List<List<String>> getWaves() {
+        return waves;
+    }
+
+    /**
+     * Deploy every stage of the plan
+     *
+     * @param deployStage deploys the API to one stage
+     * @throws IllegalStateException if a stage could not be deployed, in which case later waves are not deployed
+     */
+    public void deploy(Consumer<String> deployStage) {
+        final Map<String, String> report = new LinkedHashMap<>();
+        Throwable failure = null;
+
+        final int threads = waves.stream().mapToInt(List::size).max().getAsInt();
+        // a plan of single stages is deployed on the calling thread
+        final ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        final Executor executor = pool != null ? pool : Runnable::run;
+
+        try {
+            for (List<String> wave : waves) {
+                if (failure != null) {
+                    wave.forEach(stage -> report.put(stage, "NOT DEPLOYED"));
+                    continue;
+                }
+
+                final Map<String, CompletableFuture<Long>> deployments = new LinkedHashMap<>();
+                for (String stage : wave) {
+                    deployments.put(stage, CompletableFuture.supplyAsync(() -> deploy(deployStage, stage), executor));
+                }
+
+                for (Map.Entry<String, CompletableFuture<Long>> entry : deployments.entrySet()) {
+                    try {
+                        report.put(entry.getKey(), format("DEPLOYED  %8dms", entry.getValue().join()));
+                    } catch (Throwable t) {
+                        final Throwable cause = t.getCause() != null ? t.getCause() : t;
+                        LOG.error("Error deploying stage " + entry.getKey(), cause);
+                        report.put(entry.getKey(), "FAILED    " + cause.getMessage());
+                        failure = failure == null ? cause : failure;
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        if (report.size() > 1) {
+            LOG.info("Deployment report:");
+            report.forEach((stage, result) -> LOG.info(format("%-16s %s", stage, result)));
+        }
+
+        if (failure != null) {
+            throw new IllegalStateException("Deployment failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static long deploy(Consumer<String> deployStage, String stage) {
+        final long start = System.currentTimeMillis();
+        deployStage.accept(stage);
+        return System.currentTimeMillis() - start;
+    }
+
+    @Override
+    public String toString() {
+        final List<String> waveStrings = new ArrayList<>();
+        waves.forEach(wave -> waveStrings.add(String.join(",", wave)));
+        return String.join(":", waveStrings);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Append-only journal of the operations completed while importing an API
+ *
+ * Each completed operation is written to the journal file as soon as it succeeds, so an import that fails part way
+ * through can later be resumed from the journal instead of being rolled back and started again.
+ */
+public class ImportJournal {
+    private static final Log LOG = LogFactory.getLog(ImportJournal.class);
+
+    public static final String API = "api";
+    public static final String DEFINITION = "definition";
+    public static final String CONFIG = "config";
+    public static final String STEP = "step";
+    public static final String MODEL = "model";
+    public static final String METHOD = "method";
+
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final boolean resumed;
+    private final Map<String, Set<String>> entries = new HashMap<>();
+
+    private ImportJournal(File file, boolean resumed) {
+        this.file = file;
+        this.resumed = resumed;
+    }
+
+    /**
+     * Create a journal that is not backed by a file and can't be resumed
+     */
+    public static ImportJournal inMemory() {
+        return new ImportJournal(null, false);
+    }
+
+    /**
+     * Create a new, empty journal file, replacing any existing file
+     */
+    public static ImportJournal create(File file) {
+        try {
+            new FileOutputStream(file, false).close();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not create import journal " + file, e);
+        }
+
+        return new ImportJournal(file, false);
+    }
+
+    /**
+     * Load an existing journal file. Operations completed after loading are appended to the same file
+     */
+    public static ImportJournal load(File file) {
+        final ImportJournal journal = new ImportJournal(file, true);
+
+        try {
+            final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+            // a torn last line is expected if the process died while writing it, only terminated lines are complete.
+            // It is cut off so that the next operation is appended on a line of its own
+            final String complete = content.substring(0, content.lastIndexOf('\n') + 1);
+            if (complete.length() < content.length()) {
+                LOG.warn("Ignoring incomplete last line of import journal " + file);
+
+                try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                    out.setLength(complete.getBytes(StandardCharsets.UTF_8).length);
+                }
+            }
+
+            for (String line : complete.split("\n")) {
+                final int sep = line.indexOf(SEPARATOR);
+
+                if (sep > 0) {
+                    journal.add(line.substring(0, sep), line.substring(sep + 1));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read import journal " + file, e);
+        }
+
+        if (!journal.getApiId().isPresent()) {
+            throw new IllegalArgumentException("Import journal " + file + " does not reference an API");
+        }
+
+        LOG.info(String.format("Loaded import journal %s with %d completed operations", file, journal.size()));
+
+        return journal;
+    }
+
+    public Optional<File> getFile() {
+        return Optional.ofNullable(file);
+    }
+
+    /**
+     * @return true if this journal was loaded from a previous, unfinished import
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public Optional<String> getApiId() {
+        return getValue(API);
+    }
+
+    public void recordApi(String apiId) {
+        recordCompleted(API, apiId);
+    }
+
+    public Optional<String> getDefinition() {
+        return getValue(DEFINITION);
+    }
+
+    public void recordDefinition(String filePath) {
+        recordCompleted(DEFINITION, new File(filePath).getAbsolutePath());
+    }
+
+    public Optional<String> getConfig() {
+        return getValue(CONFIG);
+    }
+
+    public void recordConfig(String filePath) {
+        recordCompleted(CONFIG, new File(filePath).getAbsolutePath());
+    }
+
+    public synchronized boolean isCompleted(String kind, String key) {
+        return entries.containsKey(kind) && entries.get(kind).contains(key);
+    }
+
+    public synchronized void recordCompleted(String kind, String key) {
+        if (!add(kind, key) || file == null) {
+            return;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write(kind + SEPARATOR + key + "\n");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write to import journal " + file, e);
+        }
+    }
+
+    /**
+     * Delete the journal file once the import has completed or has been rolled back
+     */
+    public void delete() {
+        if (file != null && file.exists() && !file.delete()) {
+            LOG.warn("Could not delete import journal " + file);
+        }
+    }
+
+    private synchronized Optional<String> getValue(String kind) {
+        if (!entries.containsKey(kind)) {
+            return Optional.empty();
+        }
+        return entries.get(kind).stream().findFirst();
+    }
+
+    private synchronized int size() {
+        return entries.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private boolean add(String kind, String key) {
+        return entries.computeIfAbsent(kind, k -> new LinkedHashSet<>()).add(key);
+    }
+
+}
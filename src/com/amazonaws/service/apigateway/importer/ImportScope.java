@@ -0,0 +1,317 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import com.amazonaws.service.apigateway.importer.impl.SchemaTransformer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.raml.model.Action;
+import org.raml.model.MimeType;
+import org.raml.model.Raml;
+import org.raml.model.Resource;
+import org.raml.model.Response;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Part of a definition selected for import with path globs and operation tags. Paths are matched as written in the
+ * definition, without the base path. '*' matches within one path segment and '**' matches any number of segments, so
+ * '/billing/**' selects '/billing' and everything below it.
+ *
+ * Only the selected paths and operations are imported, and cleanup never deletes a resource, method or model outside
+ * of the scope
+ */
+public class ImportScope {
+    private static final ImportScope ALL = new ImportScope(null, null, null);
+
+    private final List<String> include;
+    private final List<String> exclude;
+    private final Set<String> tags;
+
+    private final List<Pattern> includePatterns = new ArrayList<>();
+    private final List<Pattern> excludePatterns = new ArrayList<>();
+
+    public ImportScope(List<String> include, List<String> exclude, List<String> tags) {
+        this.include = include == null ? Collections.emptyList() : trim(include);
+        this.exclude = exclude == null ? Collections.emptyList() : trim(exclude);
+        this.tags = tags == null ? Collections.emptySet() : new LinkedHashSet<>(trim(tags));
+
+        this.include.forEach(glob -> includePatterns.add(compile(glob)));
+        this.exclude.forEach(glob -> excludePatterns.add(compile(glob)));
+    }
+
+    /**
+     * @return the scope of the whole definition
+     */
+    public static ImportScope all() {
+        return ALL;
+    }
+
+    /**
+     * @return true if only part of the definition is selected
+     */
+    public boolean isPartial() {
+        return !include.isEmpty() || !exclude.isEmpty() || !tags.isEmpty();
+    }
+
+    public boolean hasTags() {
+        return !tags.isEmpty();
+    }
+
+    public boolean includesPath(String path) {
+        final String normalized = normalize(path);
+
+        return (includePatterns.isEmpty() || includePatterns.stream().anyMatch(p -> p.matcher(normalized).matches()))
+                && excludePatterns.stream().noneMatch(p -> p.matcher(normalized).matches());
+    }
+
+    public boolean includesOperation(String path, List<String> operationTags) {
+        return includesPath(path) && (tags.isEmpty() || (operationTags != null && operationTags.stream().anyMatch(tags::contains)));
+    }
+
+    /**
+     * @return true if cleanup may delete the method or resource at the path. Nothing is deleted under a tag filter, as
+     * API Gateway doesn't record the tags of the methods it serves
+     */
+    public boolean canDelete(String path) {
+        return !isPartial() || (!hasTags() && includesPath(path));
+    }
+
+    /**
+     * @return a copy of the definition limited to the selected operations and the models they reference, or the
+     * definition itself if the whole of it is selected
+     */
+    public Swagger apply(Swagger swagger) {
+        if (!isPartial()) {
+            return swagger;
+        }
+
+        final Map<String, Path> paths = new LinkedHashMap<>();
+
+        if (swagger.getPaths() != null) {
+            swagger.getPaths().forEach((path, item) -> {
+                final Path scoped = new Path();
+                scoped.setParameters(item.getParameters());
+                if (item.getVendorExtensions() != null) {
+                    item.getVendorExtensions().forEach(scoped::setVendorExtension);
+                }
+
+                item.getOperationMap().forEach((method, op) -> {
+                    if (includesOperation(path, op.getTags())) {
+                        scoped.set(method.name().toLowerCase(), op);
+                    }
+                });
+
+                if (!scoped.isEmpty()) {
+                    paths.put(path, scoped);
+                }
+            });
+        }
+
+        final Swagger scoped = new Swagger();
+        scoped.setSwagger(swagger.getSwagger());
+        scoped.setInfo(swagger.getInfo());
+        scoped.setHost(swagger.getHost());
+        scoped.setBasePath(swagger.getBasePath());
+        scoped.setSchemes(swagger.getSchemes());
+        scoped.setTags(swagger.getTags());
+        scoped.setConsumes(swagger.getConsumes());
+        scoped.setProduces(swagger.getProduces());
+        scoped.setSecurityDefinitions(swagger.getSecurityDefinitions());
+        scoped.setSecurity(swagger.getSecurity());
+        scoped.setParameters(swagger.getParameters());
+        scoped.setResponses(swagger.getResponses());
+        scoped.setExternalDocs(swagger.getExternalDocs());
+        if (swagger.getVendorExtensions() != null) {
+            swagger.getVendorExtensions().forEach(scoped::setVendorExtension);
+        }
+        scoped.setPaths(paths);
+        scoped.setDefinitions(getReferencedDefinitions(paths, swagger.getDefinitions()));
+
+        return scoped;
+    }
+
+    /**
+     * @return a copy of the definition limited to the selected resources, their ancestors and the schemas they
+     * reference, or the definition itself if the whole of it is selected
+     */
+    public Raml apply(Raml raml) {
+        if (!isPartial()) {
+            return raml;
+        }
+
+        if (hasTags()) {
+            throw new IllegalArgumentException("Tag filters are not supported for RAML definitions");
+        }
+
+        final Raml scoped = SerializationUtils.clone(raml);
+        final Set<String> schemas = new HashSet<>();
+
+        prune(scoped.getResources(), schemas);
+
+        if (scoped.getSchemas() != null) {
+            scoped.getSchemas().forEach(entries -> entries.keySet().retainAll(schemas));
+            scoped.getSchemas().removeIf(Map::isEmpty);
+        }
+
+        return scoped;
+    }
+
+    /*
+     * Remove the resources outside of the scope that have nothing in scope below them, and the actions of those kept
+     * only as ancestors. Collects the names of the schemas the remaining actions reference
+     */
+    private void prune(Map<String, Resource> resources, Set<String> schemas) {
+        resources.values().removeIf(resource -> {
+            prune(resource.getResources(), schemas);
+
+            if (!includesPath(resource.getUri())) {
+                resource.getActions().clear();
+                return resource.getResources().isEmpty();
+            }
+
+            for (Action action : resource.getActions().values()) {
+                addSchemas(action.getBody(), schemas);
+                if (action.getResponses() != null) {
+                    for (Response response : action.getResponses().values()) {
+                        addSchemas(response.getBody(), schemas);
+                    }
+                }
+            }
+
+            return false;
+        });
+    }
+
+    private void addSchemas(Map<String, MimeType> body, Set<String> schemas) {
+        if (body != null) {
+            body.values().stream().filter(m -> m.getSchema() != null && m.getSchema().matches("\\w+"))
+                    .forEach(m -> schemas.add(m.getSchema()));
+        }
+    }
+
+    /*
+     * Definitions referenced from the paths, directly or through other definitions
+     */
+    private Map<String, Model> getReferencedDefinitions(Map<String, Path> paths, Map<String, Model> definitions) {
+        if (definitions == null) {
+            return null;
+        }
+
+        final SchemaTransformer transformer = new SchemaTransformer();
+        final Map<String, Set<String>> graph;
+        final Deque<String> pending;
+
+        try {
+            graph = transformer.getReferenceGraph(Json.mapper().writeValueAsString(definitions));
+            pending = new ArrayDeque<>(transformer.getReferences(Json.mapper().writeValueAsString(paths)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not process Swagger definition", e);
+        }
+
+        final Map<String, Model> referenced = new LinkedHashMap<>();
+        final Set<String> visited = new HashSet<>();
+
+        while (!pending.isEmpty()) {
+            final String name = pending.pop();
+
+            if (visited.add(name) && definitions.containsKey(name)) {
+                pending.addAll(graph.getOrDefault(name, Collections.emptySet()));
+            }
+        }
+
+        // keep the order of the definition
+        definitions.forEach((name, model) -> {
+            if (visited.contains(name)) {
+                referenced.put(name, model);
+            }
+        });
+
+        return referenced;
+    }
+
+    private static List<String> trim(List<String> values) {
+        final List<String> trimmed = new ArrayList<>();
+        values.stream().map(String::trim).filter(StringUtils::isNotEmpty).forEach(trimmed::add);
+        return trimmed;
+    }
+
+    private static String normalize(String path) {
+        final String normalized = "/" + StringUtils.strip(path == null ? "" : path, "/");
+        return normalized.replaceAll("/+", "/");
+    }
+
+    /*
+     * '**' matches any number of segments, '*' and '?' stay within one segment
+     */
+    private static Pattern compile(String glob) {
+        final String normalized = normalize(glob);
+        final StringBuilder regex = new StringBuilder();
+
+        for (int i = 0; i < normalized.length(); i++) {
+            final char c = normalized.charAt(i);
+
+            if (normalized.startsWith("/**", i)) {
+                regex.append("(/.*)?");
+                i += 2;
+            } else if (normalized.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public String toString() {
+        if (!isPartial()) {
+            return "all paths";
+        }
+
+        final List<String> parts = new ArrayList<>();
+        if (!include.isEmpty()) {
+            parts.add("include " + String.join(",", include));
+        }
+        if (!exclude.isEmpty()) {
+            parts.add("exclude " + String.join(",", exclude));
+        }
+        if (!tags.isEmpty()) {
+            parts.add("tags " + String.join(",", tags));
+        }
+        return String.join(", ", parts);
+    }
+}
@@ -18,7 +18,15 @@ import com.amazonaws.util.json.JSONObject;
 
 public interface RamlApiFileImporter {
     String importApi(String filePath, JSONObject config);
+    String importApi(String filePath, JSONObject config, ImportJournal journal);
+    String importApi(String filePath, JSONObject config, ImportJournal journal, ImportScope scope);
+    String resumeApi(String filePath, JSONObject config, ImportJournal journal);
+    String resumeApi(String filePath, JSONObject config, ImportJournal journal, ImportScope scope);
     void updateApi(String apiId, String filePath, JSONObject config);
+    void updateApi(String apiId, String filePath, JSONObject config, ImportScope scope);
     void deploy(String apiId, String deploymentStage);
+    void deploy(String apiId, DeploymentPlan plan, String filePath, JSONObject config, boolean force);
+    void deploy(String apiId, DeploymentPlan plan, String filePath, JSONObject config, ImportScope scope, boolean force);
     void deleteApi(String apiId);
+    RequestStats getRequestStats();
 }
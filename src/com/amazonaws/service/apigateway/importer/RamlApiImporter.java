@@ -19,7 +19,14 @@ import org.raml.model.Raml;
 
 public interface RamlApiImporter {
     String createApi(Raml raml, String name, JSONObject config);
+    String createApi(Raml raml, String name, JSONObject config, ImportJournal journal);
+    String createApi(Raml raml, String name, JSONObject config, ImportJournal journal, ImportScope scope);
+    String resumeApi(Raml raml, JSONObject config, ImportJournal journal);
+    String resumeApi(Raml raml, JSONObject config, ImportJournal journal, ImportScope scope);
     void updateApi(String apiId, Raml raml, JSONObject config);
+    void updateApi(String apiId, Raml raml, JSONObject config, ImportScope scope);
     void deploy(String apiId, String deploymentStage);
+    void deploy(String apiId, String deploymentStage, Raml raml, JSONObject config, boolean force);
     void deleteApi(String apiId);
+    RequestStats getRequestStats();
 }
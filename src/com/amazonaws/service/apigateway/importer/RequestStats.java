@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number and size of the requests sent to API Gateway by an import. Sizes are those of the JSON request bodies,
+ * requests without a body count as zero bytes
+ */
+public class RequestStats {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    public void record(long bodyBytes) {
+        requests.incrementAndGet();
+        requestBytes.addAndGet(bodyBytes);
+    }
+
+    public void add(RequestStats other) {
+        requests.addAndGet(other.getRequests());
+        requestBytes.addAndGet(other.getRequestBytes());
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return getRequests() + " requests, " + getRequestBytes() + " bytes";
+    }
+}
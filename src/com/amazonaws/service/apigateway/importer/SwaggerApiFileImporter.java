@@ -16,7 +16,17 @@ package com.amazonaws.service.apigateway.importer;
 
 public interface SwaggerApiFileImporter {
     String importApi(String filePath);
+    String importApi(String filePath, ImportJournal journal);
+    String importApi(String filePath, ImportJournal journal, ImportScope scope);
+    String resumeApi(String filePath, ImportJournal journal);
+    String resumeApi(String filePath, ImportJournal journal, ImportScope scope);
     void updateApi(String apiId, String filePath);
+    void updateApi(String apiId, String filePath, ImportScope scope);
+    void updateApi(String apiId, String filePath, String previousFilePath);
+    void updateApi(String apiId, String filePath, String previousFilePath, ImportScope scope);
     void deploy(String apiId, String deploymentStage);
+    void deploy(String apiId, DeploymentPlan plan, String filePath, boolean force);
+    void deploy(String apiId, DeploymentPlan plan, String filePath, ImportScope scope, boolean force);
     void deleteApi(String apiId);
+    RequestStats getRequestStats();
 }
@@ -18,7 +18,16 @@ import io.swagger.models.Swagger;
 
 public interface SwaggerApiImporter {
     String createApi(Swagger swagger, String name);
+    String createApi(Swagger swagger, String name, ImportJournal journal);
+    String createApi(Swagger swagger, String name, ImportJournal journal, ImportScope scope);
+    String resumeApi(Swagger swagger, ImportJournal journal);
+    String resumeApi(Swagger swagger, ImportJournal journal, ImportScope scope);
     void updateApi(String apiId, Swagger swagger);
+    void updateApi(String apiId, Swagger swagger, ImportScope scope);
+    void updateApi(String apiId, Swagger swagger, Swagger previousSwagger);
+    void updateApi(String apiId, Swagger swagger, Swagger previousSwagger, ImportScope scope);
     void deploy(String apiId, String deploymentStage);
+    void deploy(String apiId, String deploymentStage, Swagger swagger, boolean force);
     void deleteApi(String apiId);
+    RequestStats getRequestStats();
 }
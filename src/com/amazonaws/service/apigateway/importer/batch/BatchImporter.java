@@ -0,0 +1,339 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.batch;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.service.apigateway.importer.DeploymentPlan;
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.amazonaws.service.apigateway.importer.RamlApiImporter;
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.service.apigateway.importer.SwaggerApiImporter;
+import com.amazonaws.service.apigateway.importer.config.ApiImporterDefaultModule;
+import com.amazonaws.service.apigateway.importer.impl.DefinitionParser;
+import com.amazonaws.util.json.JSONException;
+import com.amazonaws.util.json.JSONObject;
+import com.amazonaws.util.json.JSONTokener;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import io.swagger.models.Swagger;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.raml.model.Raml;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Runs import jobs concurrently on a fixed pool of workers. Each job uses its own importer instances, so a failed job
+ * doesn't affect the others. Injectors are built once per region and every client of a region shares one rate limiter.
+ * Jobs of the same run importing the same file, such as one definition rolled out to several regions, share its parse
+ */
+public class BatchImporter implements AutoCloseable {
+    private static final Log LOG = LogFactory.getLog(BatchImporter.class);
+
+    private final AWSCredentialsProvider credentialsProvider;
+    private final String defaultRegion;
+    private final double requestsPerSecond;
+    private final File journalDirectory;
+    private final Module[] modules;
+    private final ExecutorService executor;
+    private final Map<String, Injector> injectors = new ConcurrentHashMap<>();
+
+    public BatchImporter(AWSCredentialsProvider credentialsProvider, String defaultRegion, int threads,
+                         double requestsPerSecond, Module... modules) {
+        this(credentialsProvider, defaultRegion, threads, requestsPerSecond, null, modules);
+    }
+
+    /**
+     * @param requestsPerSecond maximum rate of requests sent to each region by all jobs together
+     * @param journalDirectory directory of the journals of the jobs creating an API, null for the temporary directory
+     * @param modules additional modules installed in the injector of every region, overriding its default bindings
+     */
+    public BatchImporter(AWSCredentialsProvider credentialsProvider, String defaultRegion, int threads,
+                         double requestsPerSecond, File journalDirectory, Module... modules) {
+        this.credentialsProvider = credentialsProvider;
+        this.defaultRegion = defaultRegion;
+        this.requestsPerSecond = requestsPerSecond;
+        this.journalDirectory = journalDirectory;
+        this.modules = modules;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    public static List<ImportJob> readManifest(File manifest) throws IOException {
+        final List<ImportJob> jobs = new ObjectMapper().readValue(manifest, new TypeReference<List<ImportJob>>() {});
+
+        jobs.forEach(ImportJob::validate);
+
+        return jobs;
+    }
+
+    /**
+     * Run all jobs and wait for them to complete
+     *
+     * @return the result of each job, in the order of the jobs
+     */
+    public List<ImportJobResult> importAll(List<ImportJob> jobs) {
+        final Map<String, CompletableFuture<Object>> definitions = new HashMap<>();
+        final List<CompletableFuture<ImportJobResult>> futures = new ArrayList<>();
+
+        for (ImportJob job : jobs) {
+            final CompletableFuture<Object> definition =
+                    definitions.computeIfAbsent(job.getFile(), file -> submit(() -> parse(job)));
+
+            // the parsed definition is only read by the importers, so the jobs can share it
+            futures.add(definition.handleAsync((d, t) -> importApi(job, () -> {
+                if (t != null) {
+                    final Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+                }
+                return d;
+            }), executor));
+        }
+
+        final List<ImportJobResult> results = new ArrayList<>();
+        futures.forEach(f -> results.add(f.join()));
+
+        return results;
+    }
+
+    public CompletableFuture<ImportJobResult> submit(ImportJob job) {
+        return submit(() -> importApi(job));
+    }
+
+    /**
+     * Run a task on the worker pool, queueing it while all workers are busy
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Warm up the injector of a region, so the first job doesn't pay for creating it
+     */
+    public void initialize(String region) {
+        final Injector injector = getInjector(region);
+        injector.getInstance(DefinitionParser.class);
+        injector.getInstance(SwaggerApiImporter.class);
+        injector.getInstance(RamlApiImporter.class);
+    }
+
+    public static void logReport(List<ImportJobResult> results) {
+        long failed = results.stream().filter(r -> !r.isSucceeded()).count();
+
+        LOG.info("Import report:");
+        results.forEach(r -> LOG.info(format("%-9s %-12s %-12s %8dms %6d req %10d B  %s%s%s", r.isSucceeded() ? "SUCCEEDED" : "FAILED",
+                                             r.getRegion(), StringUtils.defaultString(r.getApiId(), "-"),
+                                             r.getDurationMillis(), r.getRequests(), r.getRequestBytes(), r.getJob().getFile(),
+                                             r.isSucceeded() ? "" : ": " + r.getError(),
+                                             r.getJournalFile() == null ? "" : " (journal " + r.getJournalFile() + ")")));
+        LOG.info(format("%d imports succeeded, %d failed, %d requests, %d request bytes", results.size() - failed, failed,
+                        results.stream().mapToLong(ImportJobResult::getRequests).sum(),
+                        results.stream().mapToLong(ImportJobResult::getRequestBytes).sum()));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Run a job on the calling thread
+     */
+    public ImportJobResult importApi(ImportJob job) {
+        return importApi(job, () -> parse(job));
+    }
+
+    private ImportJobResult importApi(ImportJob job, Supplier<Object> definition) {
+        final String region = job.getRegion() != null ? job.getRegion() : defaultRegion;
+        final RequestStats stats = new RequestStats();
+        final long start = System.currentTimeMillis();
+        ImportJournal journal = ImportJournal.inMemory();
+
+        LOG.info("Starting import of " + job);
+
+        try {
+            if (job.isCreate()) {
+                journal = createJournal(job, region);
+            }
+
+            final String apiId = isRaml(job)
+                    ? importRaml(job, (Raml) definition.get(), getInjector(region), journal, stats)
+                    : importSwagger(job, (Swagger) definition.get(), getInjector(region), journal, stats);
+
+            journal.delete();
+
+            LOG.info("Completed import of " + job);
+            return ImportJobResult.succeeded(job, region, apiId, System.currentTimeMillis() - start, stats);
+        } catch (Throwable t) {
+            LOG.error("Error importing " + job, t);
+            return ImportJobResult.failed(job, region, journal.getApiId().orElse(job.getApiId()), t,
+                                          System.currentTimeMillis() - start, stats, keepJournal(job, region, journal));
+        }
+    }
+
+    /*
+     * Record the progress of a job creating an API, so that the API is not lost if the job fails
+     */
+    private ImportJournal createJournal(ImportJob job, String region) throws IOException {
+        final String prefix = "aws-api-import-" + FilenameUtils.getBaseName(job.getFile()) + "-" + region + "-";
+        final ImportJournal journal = ImportJournal.create(File.createTempFile(prefix, ".journal", journalDirectory));
+
+        journal.recordDefinition(job.getFile());
+        if (job.getRamlConfig() != null) {
+            journal.recordConfig(job.getRamlConfig());
+        }
+
+        return journal;
+    }
+
+    /*
+     * Keep the journal of a failed job if it created an API, so the import can be resumed
+     * @return path of the journal kept, null if there is none
+     */
+    private String keepJournal(ImportJob job, String region, ImportJournal journal) {
+        if (!journal.getFile().isPresent() || !journal.getApiId().isPresent()) {
+            journal.delete();
+            return null;
+        }
+
+        final String path = journal.getFile().get().getAbsolutePath();
+        LOG.error(format("Progress of %s has been saved, to continue run: aws-api-import --region %s --resume %s", job, region, path));
+        return path;
+    }
+
+    private String importSwagger(ImportJob job, Swagger swagger, Injector injector, ImportJournal journal, RequestStats stats) {
+        final SwaggerApiImporter importer = injector.getInstance(SwaggerApiImporter.class);
+
+        try {
+            return importSwagger(job, swagger, importer, journal);
+        } finally {
+            stats.add(importer.getRequestStats());
+        }
+    }
+
+    private String importSwagger(ImportJob job, Swagger swagger, SwaggerApiImporter importer, ImportJournal journal) {
+        final ImportScope scope = getScope(job);
+        final String apiId;
+
+        if (job.isCreate()) {
+            apiId = importer.createApi(swagger, new File(job.getFile()).getName(), journal, scope);
+        } else {
+            apiId = job.getApiId();
+            importer.updateApi(apiId, swagger, scope);
+        }
+
+        if (!StringUtils.isBlank(job.getStage())) {
+            final Swagger deployed = scope.apply(swagger);
+            DeploymentPlan.parse(job.getStage()).deploy(stage -> importer.deploy(apiId, stage, deployed, job.isForceDeploy()));
+        }
+
+        return apiId;
+    }
+
+    private String importRaml(ImportJob job, Raml raml, Injector injector, ImportJournal journal, RequestStats stats) {
+        final RamlApiImporter importer = injector.getInstance(RamlApiImporter.class);
+
+        try {
+            return importRaml(job, raml, importer, journal);
+        } finally {
+            stats.add(importer.getRequestStats());
+        }
+    }
+
+    private String importRaml(ImportJob job, Raml raml, RamlApiImporter importer, ImportJournal journal) {
+        final JSONObject config = readConfig(job.getRamlConfig());
+        final ImportScope scope = getScope(job);
+        final String apiId;
+
+        if (job.isCreate()) {
+            apiId = importer.createApi(raml, new File(job.getFile()).getName(), config, journal, scope);
+        } else {
+            apiId = job.getApiId();
+            importer.updateApi(apiId, raml, config, scope);
+        }
+
+        if (!StringUtils.isBlank(job.getStage())) {
+            final Raml deployed = scope.apply(raml);
+            DeploymentPlan.parse(job.getStage()).deploy(stage -> importer.deploy(apiId, stage, deployed, config, job.isForceDeploy()));
+        }
+
+        return apiId;
+    }
+
+    private Object parse(ImportJob job) {
+        final Injector injector = getInjector(job.getRegion() != null ? job.getRegion() : defaultRegion);
+
+        if (isRaml(job)) {
+            return injector.getInstance(DefinitionParser.class).parseRaml(job.getFile());
+        }
+
+        final Swagger swagger = injector.getInstance(DefinitionParser.class).parseSwagger(job.getFile());
+
+        if (swagger == null) {
+            throw new IllegalArgumentException("Unable to parse Swagger definition " + job.getFile());
+        }
+
+        return swagger;
+    }
+
+    private ImportScope getScope(ImportJob job) {
+        return new ImportScope(job.getInclude(), job.getExclude(), job.getTags());
+    }
+
+    private boolean isRaml(ImportJob job) {
+        return FilenameUtils.getExtension(job.getFile()).equals("raml");
+    }
+
+    private JSONObject readConfig(String configFile) {
+        if (configFile == null) {
+            return null;
+        }
+
+        try {
+            return new JSONObject(new JSONTokener(new FileReader(configFile)));
+        } catch (JSONException | FileNotFoundException e) {
+            throw new IllegalArgumentException("Unable to parse configuration file " + configFile, e);
+        }
+    }
+
+    private Injector getInjector(String region) {
+        return injectors.computeIfAbsent(region, r -> {
+            return Guice.createInjector(Modules.override(
+                    new ApiImporterDefaultModule(credentialsProvider, r, RateLimiter.create(requestsPerSecond))).with(modules));
+        });
+    }
+}
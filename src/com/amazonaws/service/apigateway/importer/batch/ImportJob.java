@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.batch;
+
+import com.amazonaws.service.apigateway.importer.DeploymentPlan;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * One entry of a batch manifest: a definition file imported into a new or an existing API, optionally deployed to a stage
+ */
+public class ImportJob {
+    private String file;
+    private String apiId;
+    private boolean create;
+    private String stage;
+    private boolean forceDeploy;
+    private String region;
+    private String ramlConfig;
+    private List<String> include;
+    private List<String> exclude;
+    private List<String> tags;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    /**
+     * @return id of the API to update, null when creating a new API
+     */
+    public String getApiId() {
+        return apiId;
+    }
+
+    public void setApiId(String apiId) {
+        this.apiId = apiId;
+    }
+
+    public boolean isCreate() {
+        return create;
+    }
+
+    public void setCreate(boolean create) {
+        this.create = create;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * @return true to deploy even if the stage is already deployed from the same definition
+     */
+    public boolean isForceDeploy() {
+        return forceDeploy;
+    }
+
+    public void setForceDeploy(boolean forceDeploy) {
+        this.forceDeploy = forceDeploy;
+    }
+
+    /**
+     * @return region of the API, null to use the default region
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getRamlConfig() {
+        return ramlConfig;
+    }
+
+    public void setRamlConfig(String ramlConfig) {
+        this.ramlConfig = ramlConfig;
+    }
+
+    /**
+     * @return globs of the definition paths to import, null to import all paths
+     */
+    public List<String> getInclude() {
+        return include;
+    }
+
+    public void setInclude(List<String> include) {
+        this.include = include;
+    }
+
+    /**
+     * @return globs of the definition paths to leave out of the import
+     */
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        this.exclude = exclude;
+    }
+
+    /**
+     * @return tags of the operations to import, null to import operations regardless of their tags
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public void validate() {
+        if (StringUtils.isBlank(file)) {
+            throw new IllegalArgumentException("Import job is missing a definition file");
+        }
+        if (!new File(file).exists()) {
+            throw new IllegalArgumentException(String.format("Could not load file '%s'", file));
+        }
+        if (create == (apiId != null)) {
+            throw new IllegalArgumentException("Import job for " + file + " must either update an API id or create a new API");
+        }
+        if (!StringUtils.isBlank(stage)) {
+            DeploymentPlan.parse(stage);
+        }
+        if (ramlConfig != null && !new File(ramlConfig).exists()) {
+            throw new IllegalArgumentException(String.format("Could not load file '%s'", ramlConfig));
+        }
+        if (tags != null && !tags.isEmpty() && file.endsWith(".raml")) {
+            throw new IllegalArgumentException("Tag filters are not supported for RAML definitions");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file + (create ? " (new API)" : " (" + apiId + ")") + (region == null ? "" : " in " + region);
+    }
+}
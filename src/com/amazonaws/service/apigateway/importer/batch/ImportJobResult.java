@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.batch;
+
+import com.amazonaws.service.apigateway.importer.RequestStats;
+
+/**
+ * Outcome, timing and request counts of an {@link ImportJob}
+ */
+public class ImportJobResult {
+    private final ImportJob job;
+    private final String region;
+    private final String apiId;
+    private final String error;
+    private final long durationMillis;
+    private final long requests;
+    private final long requestBytes;
+    private final String journalFile;
+
+    private ImportJobResult(ImportJob job, String region, String apiId, String error, long durationMillis, RequestStats stats,
+                            String journalFile) {
+        this.job = job;
+        this.region = region;
+        this.apiId = apiId;
+        this.error = error;
+        this.durationMillis = durationMillis;
+        this.requests = stats.getRequests();
+        this.requestBytes = stats.getRequestBytes();
+        this.journalFile = journalFile;
+    }
+
+    public static ImportJobResult succeeded(ImportJob job, String region, String apiId, long durationMillis, RequestStats stats) {
+        return new ImportJobResult(job, region, apiId, null, durationMillis, stats, null);
+    }
+
+    public static ImportJobResult failed(ImportJob job, String region, String apiId, Throwable error, long durationMillis, RequestStats stats) {
+        return failed(job, region, apiId, error, durationMillis, stats, null);
+    }
+
+    /**
+     * @param journalFile journal of a failed import creating an API, from which it can be resumed
+     */
+    public static ImportJobResult failed(ImportJob job, String region, String apiId, Throwable error, long durationMillis,
+                                         RequestStats stats, String journalFile) {
+        // exceptions such as a NullPointerException have no message, their class name is the best description
+        final String message = error.getMessage() != null ? error.getMessage() : error.toString();
+        return new ImportJobResult(job, region, apiId, message, durationMillis, stats, journalFile);
+    }
+
+    public ImportJob getJob() {
+        return job;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * @return id of the imported API. For a failed import creating an API, the id of the partially created API if any
+     */
+    public String getApiId() {
+        return apiId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSucceeded() {
+        return error == null;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return number of requests sent to API Gateway, including those of a failed import up to its failure
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return total size of the request bodies sent to API Gateway
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return journal of a failed import that created an API, to continue it with --resume. Null otherwise
+     */
+    public String getJournalFile() {
+        return journalFile;
+    }
+}
@@ -25,8 +25,10 @@ import com.amazonaws.service.apigateway.importer.RamlApiImporter;
 import com.amazonaws.service.apigateway.importer.SwaggerApiImporter;
 import com.amazonaws.service.apigateway.importer.impl.sdk.ApiGatewaySdkRamlApiImporter;
 import com.amazonaws.service.apigateway.importer.impl.sdk.ApiGatewaySdkSwaggerApiImporter;
+import com.amazonaws.service.apigateway.importer.impl.sdk.RateLimitedApiGateway;
 import com.amazonaws.services.apigateway.AmazonApiGateway;
 import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.name.Named;
@@ -44,9 +46,17 @@ public class ApiImporterDefaultModule extends AbstractModule {
 
     private String region;
 
+    // optional limiter shared by every client making requests to the region
+    private final RateLimiter rateLimiter;
+
     public ApiImporterDefaultModule(AWSCredentialsProvider awsCredentialsProvider, String region) {
+        this(awsCredentialsProvider, region, null);
+    }
+
+    public ApiImporterDefaultModule(AWSCredentialsProvider awsCredentialsProvider, String region, RateLimiter rateLimiter) {
         this.awsCredentialsProvider = awsCredentialsProvider;
         this.region = region;
+        this.rateLimiter = rateLimiter;
 
         LOG.info("Using API Gateway endpoint " + getEndpoint(region));
     }
@@ -72,7 +82,9 @@ public class ApiImporterDefaultModule extends AbstractModule {
 
         final ClientConfiguration clientConfig = new ClientConfiguration().withUserAgent(USER_AGENT).withRetryPolicy(retrypolicy);
 
-        return new AmazonApiGateway(getEndpoint(region)).with(credsProvider).with(clientConfig).getApiGateway();
+        final ApiGateway client = new AmazonApiGateway(getEndpoint(region)).with(credsProvider).with(clientConfig).getApiGateway();
+
+        return rateLimiter == null ? client : RateLimitedApiGateway.wrap(client, rateLimiter);
     }
 
     protected String getEndpoint(String region) {
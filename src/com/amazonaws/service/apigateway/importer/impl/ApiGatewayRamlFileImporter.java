@@ -14,6 +14,10 @@
  */
 package com.amazonaws.service.apigateway.importer.impl;
 
+import com.amazonaws.service.apigateway.importer.DeploymentPlan;
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.amazonaws.service.apigateway.importer.RequestStats;
 import com.amazonaws.service.apigateway.importer.RamlApiFileImporter;
 import com.amazonaws.service.apigateway.importer.RamlApiImporter;
 import com.amazonaws.util.json.JSONObject;
@@ -21,7 +25,6 @@ import com.google.inject.Inject;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.raml.model.Raml;
-import org.raml.parser.visitor.RamlDocumentBuilder;
 
 import java.io.File;
 
@@ -30,33 +33,67 @@ import static java.lang.String.format;
 public class ApiGatewayRamlFileImporter implements RamlApiFileImporter {
     private static final Log LOG = LogFactory.getLog(ApiGatewayRamlFileImporter.class);
 
-    private final RamlDocumentBuilder builder;
+    private final DefinitionParser parser;
     private final RamlApiImporter client;
 
+    // the definition parsed last, so deploying the definition just imported doesn't parse the file again
+    private String parsedPath;
+    private Raml parsed;
+
     @Inject
-    public ApiGatewayRamlFileImporter(RamlDocumentBuilder builder, RamlApiImporter client) {
-        this.builder = builder;
+    public ApiGatewayRamlFileImporter(DefinitionParser parser, RamlApiImporter client) {
+        this.parser = parser;
         this.client = client;
     }
 
     @Override
     public String importApi(String filePath, JSONObject config) {
+        return importApi(filePath, config, ImportJournal.inMemory());
+    }
+
+    @Override
+    public String importApi(String filePath, JSONObject config, ImportJournal journal) {
+        return importApi(filePath, config, journal, ImportScope.all());
+    }
+
+    @Override
+    public String importApi(String filePath, JSONObject config, ImportJournal journal, ImportScope scope) {
         LOG.info(format("Attempting to create API from RAML definition. " +
                 "RAML file: %s", filePath));
 
         final Raml raml = parse(filePath);
 
-        return client.createApi(raml, new File(filePath).getName(), config);
+        return client.createApi(raml, new File(filePath).getName(), config, journal, scope);
+    }
+
+    @Override
+    public String resumeApi(String filePath, JSONObject config, ImportJournal journal) {
+        return resumeApi(filePath, config, journal, ImportScope.all());
+    }
+
+    @Override
+    public String resumeApi(String filePath, JSONObject config, ImportJournal journal, ImportScope scope) {
+        LOG.info(format("Attempting to resume API import from RAML definition. " +
+                "API identifier: %s RAML file: %s", journal.getApiId().get(), filePath));
+
+        final Raml raml = parse(filePath);
+
+        return client.resumeApi(raml, config, journal, scope);
     }
 
     @Override
     public void updateApi(String apiId, String filePath, JSONObject config) {
+        updateApi(apiId, filePath, config, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, String filePath, JSONObject config, ImportScope scope) {
         LOG.info(format("Attempting to update API from RAML definition. " +
                 "API identifier: %s RAML file: %s", apiId, filePath));
 
         final Raml raml = parse(filePath);
 
-        client.updateApi(apiId, raml, config);
+        client.updateApi(apiId, raml, config, scope);
     }
 
     @Override
@@ -64,17 +101,38 @@ public class ApiGatewayRamlFileImporter implements RamlApiFileImporter {
         client.deploy(apiId, deploymentStage);
     }
 
+    @Override
+    public void deploy(String apiId, DeploymentPlan plan, String filePath, JSONObject config, boolean force) {
+        deploy(apiId, plan, filePath, config, ImportScope.all(), force);
+    }
+
+    @Override
+    public void deploy(String apiId, DeploymentPlan plan, String filePath, JSONObject config, ImportScope scope, boolean force) {
+        // the deployment is fingerprinted with the part of the definition that was imported
+        final Raml raml = scope.apply(parse(filePath));
+
+        plan.deploy(stage -> client.deploy(apiId, stage, raml, config, force));
+    }
+
     @Override
     public void deleteApi(String apiId) {
         client.deleteApi(apiId);
     }
 
-    private Raml parse(String filePath) {
-        final Raml raml = builder.build(filePath);
+    @Override
+    public RequestStats getRequestStats() {
+        return client.getRequestStats();
+    }
+
+    private synchronized Raml parse(String filePath) {
+        if (!filePath.equals(parsedPath)) {
+            parsed = parser.parseRaml(filePath);
+            parsedPath = filePath;
+        }
 
         // TODO: Error handling.
 
-        return raml;
+        return parsed;
     }
 
 }
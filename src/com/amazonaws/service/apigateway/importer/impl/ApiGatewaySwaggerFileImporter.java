@@ -14,11 +14,14 @@
  */
 package com.amazonaws.service.apigateway.importer.impl;
 
+import com.amazonaws.service.apigateway.importer.DeploymentPlan;
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.amazonaws.service.apigateway.importer.RequestStats;
 import com.amazonaws.service.apigateway.importer.SwaggerApiFileImporter;
 import com.amazonaws.service.apigateway.importer.SwaggerApiImporter;
 import com.google.inject.Inject;
 import io.swagger.models.Swagger;
-import io.swagger.parser.SwaggerParser;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -29,33 +32,84 @@ import static java.lang.String.format;
 public class ApiGatewaySwaggerFileImporter implements SwaggerApiFileImporter {
     private static final Log LOG = LogFactory.getLog(ApiGatewaySwaggerFileImporter.class);
 
-    private final SwaggerParser parser;
+    private final DefinitionParser parser;
     private final SwaggerApiImporter client;
 
+    // the definition parsed last, so deploying the definition just imported doesn't parse the file again
+    private String parsedPath;
+    private Swagger parsed;
+
     @Inject
-    public ApiGatewaySwaggerFileImporter(SwaggerParser parser, SwaggerApiImporter client) {
+    public ApiGatewaySwaggerFileImporter(DefinitionParser parser, SwaggerApiImporter client) {
         this.parser = parser;
         this.client = client;
     }
 
     @Override
     public String importApi(String filePath) {
+        return importApi(filePath, ImportJournal.inMemory());
+    }
+
+    @Override
+    public String importApi(String filePath, ImportJournal journal) {
+        return importApi(filePath, journal, ImportScope.all());
+    }
+
+    @Override
+    public String importApi(String filePath, ImportJournal journal, ImportScope scope) {
         LOG.info(format("Attempting to create API from Swagger definition. " +
                                 "Swagger file: %s", filePath));
 
         final Swagger swagger = parse(filePath);
 
-        return client.createApi(swagger, new File(filePath).getName());
+        return client.createApi(swagger, new File(filePath).getName(), journal, scope);
+    }
+
+    @Override
+    public String resumeApi(String filePath, ImportJournal journal) {
+        return resumeApi(filePath, journal, ImportScope.all());
+    }
+
+    @Override
+    public String resumeApi(String filePath, ImportJournal journal, ImportScope scope) {
+        LOG.info(format("Attempting to resume API import from Swagger definition. " +
+                                "API identifier: %s Swagger file: %s", journal.getApiId().get(), filePath));
+
+        final Swagger swagger = parse(filePath);
+
+        return client.resumeApi(swagger, journal, scope);
     }
 
     @Override
     public void updateApi(String apiId, String filePath) {
+        updateApi(apiId, filePath, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, String filePath, ImportScope scope) {
         LOG.info(format("Attempting to update API from Swagger definition. " +
                                 "API identifier: %s Swagger file: %s", apiId, filePath));
 
         final Swagger swagger = parse(filePath);
 
-        client.updateApi(apiId, swagger);
+        client.updateApi(apiId, swagger, scope);
+    }
+
+    @Override
+    public void updateApi(String apiId, String filePath, String previousFilePath) {
+        updateApi(apiId, filePath, previousFilePath, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, String filePath, String previousFilePath, ImportScope scope) {
+        LOG.info(format("Attempting to update API from changes to Swagger definition. " +
+                                "API identifier: %s Swagger file: %s Previous Swagger file: %s", apiId, filePath, previousFilePath));
+
+        // the current definition is parsed last, so it can be deployed without parsing it again
+        final Swagger previousSwagger = parse(previousFilePath);
+        final Swagger swagger = parse(filePath);
+
+        client.updateApi(apiId, swagger, previousSwagger, scope);
     }
 
     @Override
@@ -63,19 +117,35 @@ public class ApiGatewaySwaggerFileImporter implements SwaggerApiFileImporter {
         client.deploy(apiId, deploymentStage);
     }
 
+    @Override
+    public void deploy(String apiId, DeploymentPlan plan, String filePath, boolean force) {
+        deploy(apiId, plan, filePath, ImportScope.all(), force);
+    }
+
+    @Override
+    public void deploy(String apiId, DeploymentPlan plan, String filePath, ImportScope scope, boolean force) {
+        // the deployment is fingerprinted with the part of the definition that was imported
+        final Swagger swagger = scope.apply(parse(filePath));
+
+        plan.deploy(stage -> client.deploy(apiId, stage, swagger, force));
+    }
+
     @Override
     public void deleteApi(String apiId) {
         client.deleteApi(apiId);
     }
 
-    private Swagger parse(String filePath) {
-        final Swagger swagger = parser.read(filePath);
+    @Override
+    public RequestStats getRequestStats() {
+        return client.getRequestStats();
+    }
 
-        if (swagger != null && swagger.getPaths() != null) {
-            LOG.info("Parsed Swagger with " + swagger.getPaths().size() + " paths");
+    private synchronized Swagger parse(String filePath) {
+        if (!filePath.equals(parsedPath)) {
+            parsed = parser.parseSwagger(filePath);
+            parsedPath = filePath;
         }
-
-        return swagger;
+        return parsed;
     }
 
 }
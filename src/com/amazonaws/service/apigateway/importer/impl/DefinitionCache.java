@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.raml.model.Raml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches parsed definitions and flattened schemas in a local directory. A definition is keyed by a hash of its file and
+ * of every local file it references through $ref or !include, so editing any of them misses the cache. Definitions
+ * that are not local files are always parsed
+ */
+public class DefinitionCache {
+    private static final Log LOG = LogFactory.getLog(DefinitionCache.class);
+
+    // change when the cached representation changes, so entries written by another version are not read
+    private static final String VERSION = "2";
+
+    private static final Pattern SWAGGER_REF = Pattern.compile("[\"']?\\$ref[\"']?\\s*:\\s*[\"']?([^\"'\\s#,}]+)");
+    private static final Pattern RAML_INCLUDE = Pattern.compile("!include\\s+([^\\s\"',}]+)");
+
+    private final File directory;
+
+    public DefinitionCache(File directory) {
+        this.directory = directory;
+    }
+
+    public Swagger getSwagger(String filePath, Function<String, Swagger> parser) {
+        if (!toFile(filePath).isFile()) {
+            return parser.apply(filePath);
+        }
+
+        final File entry = new File(directory, getKey(filePath, SWAGGER_REF) + ".swagger.json");
+
+        if (entry.exists()) {
+            try {
+                final Swagger swagger = Json.mapper().readValue(entry, Swagger.class);
+                LOG.info("Loaded Swagger definition " + filePath + " from cache entry " + entry);
+                return swagger;
+            } catch (IOException e) {
+                LOG.warn("Ignoring unreadable cache entry " + entry, e);
+            }
+        }
+
+        final Swagger swagger = parser.apply(filePath);
+
+        if (swagger != null) {
+            write(entry, tmp -> Json.mapper().writeValue(tmp, swagger));
+        }
+
+        return swagger;
+    }
+
+    public Raml getRaml(String filePath, Function<String, Raml> builder) {
+        if (!toFile(filePath).isFile()) {
+            return builder.apply(filePath);
+        }
+
+        final File entry = new File(directory, getRamlKey(filePath) + ".raml.ser");
+
+        if (entry.exists()) {
+            try (ObjectInputStream in = new RamlInputStream(new BufferedInputStream(new FileInputStream(entry)))) {
+                final Raml raml = (Raml) in.readObject();
+                LOG.info("Loaded RAML definition " + filePath + " from cache entry " + entry);
+                return raml;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                LOG.warn("Ignoring unreadable cache entry " + entry, e);
+            }
+        }
+
+        final Raml raml = builder.apply(filePath);
+
+        if (raml != null) {
+            write(entry, tmp -> {
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                    out.writeObject(raml);
+                }
+            });
+        }
+
+        return raml;
+    }
+
+    /**
+     * @param modelsHash hash of the definitions the model's references are resolved against
+     * @param flatten computes the flattened schema of the model on a cache miss
+     */
+    public String getFlattenedSchema(String model, String modelsHash, Supplier<String> flatten) {
+        final String key = Hashing.sha256().newHasher()
+                .putString(VERSION, StandardCharsets.UTF_8).putByte((byte) 0)
+                .putString(model, StandardCharsets.UTF_8).putByte((byte) 0)
+                .putString(modelsHash, StandardCharsets.UTF_8)
+                .hash().toString();
+        final File entry = new File(directory, key + ".schema.json");
+
+        if (entry.exists()) {
+            try {
+                return FileUtils.readFileToString(entry, "UTF-8");
+            } catch (IOException e) {
+                LOG.warn("Ignoring unreadable cache entry " + entry, e);
+            }
+        }
+
+        final String schema = flatten.get();
+
+        write(entry, tmp -> FileUtils.writeStringToFile(tmp, schema, "UTF-8"));
+
+        return schema;
+    }
+
+    /**
+     * @return hash of the RAML file and of the local files it includes, or empty if the file is not a local file
+     */
+    static Optional<String> getRamlKeyIfLocal(String filePath) {
+        return toFile(filePath).isFile() ? Optional.of(getRamlKey(filePath)) : Optional.empty();
+    }
+
+    private static String getRamlKey(String filePath) {
+        return getKey(filePath, RAML_INCLUDE);
+    }
+
+    /*
+     * Hash of the definition file and, recursively, of the local files it references
+     */
+    private static String getKey(String filePath, Pattern reference) {
+        final Map<File, byte[]> files = new TreeMap<>();
+
+        collectFiles(toFile(filePath).getAbsoluteFile(), reference, files);
+
+        final Hasher hasher = Hashing.sha256().newHasher().putString(VERSION, StandardCharsets.UTF_8);
+        files.forEach((file, content) -> hasher.putByte((byte) 0).putString(file.getPath(), StandardCharsets.UTF_8)
+                .putByte((byte) 0).putBytes(content));
+
+        return hasher.hash().toString();
+    }
+
+    private static void collectFiles(File file, Pattern reference, Map<File, byte[]> files) {
+        if (files.containsKey(file)) {
+            return;
+        }
+
+        byte[] content;
+        try {
+            content = FileUtils.readFileToByteArray(file);
+        } catch (IOException e) {
+            // the parser reports missing files, the key only needs to change once they appear
+            content = new byte[0];
+        }
+        files.put(file, content);
+
+        final Matcher matcher = reference.matcher(new String(content, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            final String path = matcher.group(1);
+
+            // remote references can't be hashed without fetching them, they are assumed to be stable
+            if (!path.isEmpty() && !path.contains("://")) {
+                collectFiles(new File(file.getParentFile(), path).toPath().normalize().toFile(), reference, files);
+            }
+        }
+    }
+
+    private static File toFile(String filePath) {
+        try {
+            return filePath.startsWith("file:") ? new File(URI.create(filePath)) : new File(filePath);
+        } catch (IllegalArgumentException e) {
+            return new File(filePath);
+        }
+    }
+
+    /*
+     * Only reads the classes of a RAML model, so a tampered cache entry can't instantiate anything else
+     */
+    private static class RamlInputStream extends ObjectInputStream {
+        private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+                "java.lang.Boolean", "java.lang.Enum", "java.lang.Integer", "java.lang.Long", "java.lang.Number",
+                "java.lang.String", "java.util.ArrayList", "java.util.HashMap", "java.util.LinkedHashMap"));
+
+        RamlInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            final String name = desc.getName().replaceFirst("^\\[+L(.*);$", "$1");
+
+            if (!name.startsWith("org.raml.model.") && !ALLOWED_CLASSES.contains(name) && !name.matches("^\\[+[ZBCSIJFD]$")) {
+                throw new InvalidClassException(desc.getName(), "Not part of a RAML model");
+            }
+
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not part of a RAML model");
+        }
+    }
+
+    private interface Writer {
+        void write(File file) throws IOException;
+    }
+
+    /*
+     * Write through a temporary file, so concurrent imports never read a partial entry
+     */
+    private void write(File entry, Writer writer) {
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+
+            final File tmp = File.createTempFile(FilenameUtils.getBaseName(entry.getName()), ".tmp", directory);
+            try {
+                writer.write(tmp);
+
+                if (!tmp.renameTo(entry)) {
+                    throw new IOException("Could not rename " + tmp + " to " + entry);
+                }
+            } finally {
+                if (tmp.exists() && !tmp.delete()) {
+                    LOG.debug("Could not delete " + tmp);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not write cache entry " + entry, e);
+        }
+    }
+}
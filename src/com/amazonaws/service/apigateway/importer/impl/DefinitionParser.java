@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import com.amazonaws.service.apigateway.importer.util.StartupTimer;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Parses definition files, loading them from the {@link RamlLoader} or the {@link DefinitionCache} when they are bound
+ * and the definition and the files it references haven't changed
+ */
+public class DefinitionParser {
+    private static final Log LOG = LogFactory.getLog(DefinitionParser.class);
+
+    // parsers are only built for the format being imported
+    private final Provider<SwaggerParser> swaggerParser;
+
+    // the builder keeps the state of the document being built, so each parse uses its own
+    private final Provider<RamlDocumentBuilder> ramlBuilder;
+
+    @Inject(optional = true)
+    private DefinitionCache cache;
+
+    @Inject(optional = true)
+    private RamlLoader ramlLoader;
+
+    @Inject(optional = true)
+    private StartupTimer startupTimer;
+
+    @Inject
+    public DefinitionParser(Provider<SwaggerParser> swaggerParser, Provider<RamlDocumentBuilder> ramlBuilder) {
+        this.swaggerParser = swaggerParser;
+        this.ramlBuilder = ramlBuilder;
+    }
+
+    public Swagger parseSwagger(String filePath) {
+        final Swagger swagger = cache != null ? cache.getSwagger(filePath, this::readSwagger) : readSwagger(filePath);
+        mark();
+        return swagger;
+    }
+
+    private Swagger readSwagger(String filePath) {
+        final Swagger swagger = streamSwagger(filePath).orElseGet(() -> swaggerParser.get().read(filePath));
+
+        if (swagger != null && swagger.getPaths() != null) {
+            LOG.info("Parsed Swagger with " + swagger.getPaths().size() + " paths");
+        }
+
+        return swagger;
+    }
+
+    private Optional<Swagger> streamSwagger(String filePath) {
+        final File file = new File(filePath);
+
+        // json documents are streamed whatever their size or extension, yaml ones are left to the parser. Streaming
+        // avoids the intermediate tree of the document, the definition is still held in memory as a whole
+        if (file.isFile() && isJson(file)) {
+            try {
+                return new StreamingSwaggerReader().read(file);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not stream " + filePath + ", parsing the whole document", e);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean isJson(File file) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            int c;
+            do {
+                c = in.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c == '{';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public Raml parseRaml(String filePath) {
+        final Raml raml = ramlLoader != null ? ramlLoader.load(filePath, this::readRaml) : readRaml(filePath);
+        mark();
+        return raml;
+    }
+
+    private void mark() {
+        if (startupTimer != null) {
+            startupTimer.mark("read definition");
+        }
+    }
+
+    private Raml readRaml(String filePath) {
+        return cache != null ? cache.getRaml(filePath, path -> ramlBuilder.get().build(path)) : ramlBuilder.get().build(filePath);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.raml.model.Raml;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Keeps the most recently built RAML definitions in memory, so that the jobs of a batch or of the import server that
+ * share a definition build it once. Definitions are keyed like the {@link DefinitionCache}, by a hash of the file and
+ * of every local file it includes, and every caller gets its own copy of the definition
+ */
+public class RamlLoader {
+    private static final Log LOG = LogFactory.getLog(RamlLoader.class);
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    // serialized definitions, least recently used first
+    private final LruMap definitions;
+
+    public RamlLoader() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RamlLoader(int capacity) {
+        this.definitions = new LruMap(capacity);
+    }
+
+    /**
+     * @param builder builds the definition on a miss, with its includes resolved and its traits and resource types
+     *                applied
+     */
+    public Raml load(String filePath, Function<String, Raml> builder) {
+        final Optional<String> key = DefinitionCache.getRamlKeyIfLocal(filePath);
+
+        if (!key.isPresent()) {
+            return builder.apply(filePath);
+        }
+
+        final byte[] cached;
+        synchronized (definitions) {
+            cached = definitions.get(key.get());
+        }
+
+        if (cached != null) {
+            LOG.info("Loaded RAML definition " + filePath + " from memory");
+            return SerializationUtils.deserialize(cached);
+        }
+
+        final Raml raml = builder.apply(filePath);
+
+        if (raml != null) {
+            final byte[] serialized = SerializationUtils.serialize(raml);
+
+            synchronized (definitions) {
+                definitions.put(key.get(), serialized);
+            }
+        }
+
+        return raml;
+    }
+
+    private static class LruMap extends LinkedHashMap<String, byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(capacity, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > capacity;
+        }
+    }
+}
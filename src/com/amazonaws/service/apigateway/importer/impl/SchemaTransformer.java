@@ -17,6 +17,7 @@ package com.amazonaws.service.apigateway.importer.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
@@ -27,7 +28,10 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Deserializes and transforms schema schemas into normalized form
@@ -37,6 +41,24 @@ import java.util.Map;
 public class SchemaTransformer {
     protected final static Logger LOG = Logger.getLogger(SchemaTransformer.class);
 
+    private static JsonSchemaFactory schemaFactory;
+
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    /**
+     * Get the canonical form of a json document, with object keys sorted and no whitespace, so that equivalent
+     * documents serialize to the same string
+     *
+     * @return the canonical json, or the text unchanged if it is not json
+     */
+    public static String canonicalize(String json) {
+        try {
+            return CANONICAL_MAPPER.writeValueAsString(CANONICAL_MAPPER.readValue(json, Object.class));
+        } catch (IOException e) {
+            return json;
+        }
+    }
+
     /**
      * Get a schema schema in "flattened" form whereby all dependent references are resolved
      * and included as inline schema definitions
@@ -47,6 +69,55 @@ public class SchemaTransformer {
         return getFlattened(deserialize(model), deserialize(models));
     }
 
+    /**
+     * Get a schema in flattened form, resolving references against definitions parsed once for many schemas. The
+     * definitions are only read, so they can be shared by concurrent transformations
+     *
+     * @return the json-schema string in flattened form
+     */
+    public String flatten(String model, JsonNode models) {
+        return getFlattened(deserialize(model), models);
+    }
+
+    /**
+     * Get the names of the schemas referenced from a schema
+     *
+     * @return the referenced schema names
+     */
+    public Set<String> getReferences(String model) {
+        return getReferenceNames(deserialize(model));
+    }
+
+    /**
+     * Build the graph of direct references between schema definitions
+     *
+     * @return the names of the schemas directly referenced by each schema definition
+     */
+    public Map<String, Set<String>> getReferenceGraph(String models) {
+        Map<String, Set<String>> graph = new HashMap<>();
+
+        Iterator<Map.Entry<String, JsonNode>> it = deserialize(models).fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            graph.put(entry.getKey(), getReferenceNames(entry.getValue()));
+        }
+
+        return graph;
+    }
+
+    private Set<String> getReferenceNames(JsonNode model) {
+        Map<JsonNode, JsonNode> refs = new HashMap<>();
+        findReferences(model, refs);
+
+        Set<String> names = new HashSet<>();
+        for (JsonNode ref : refs.keySet()) {
+            if (ref.isTextual()) {
+                names.add(getSchemaName(ref.textValue()));
+            }
+        }
+        return names;
+    }
+
     private void buildSchemaReferenceMap(JsonNode model, JsonNode models, Map<String, String> modelMap) {
         Map<JsonNode, JsonNode> refs = new HashMap<>();
         findReferences(model, refs);
@@ -67,8 +138,9 @@ public class SchemaTransformer {
         }
     }
 
+    // a copy, as the references of the schema are rewritten when it is inlined
     private JsonNode getSchema(String schemaName, JsonNode models) {
-        return models.findPath(schemaName);
+        return models.findPath(schemaName).deepCopy();
     }
 
     private String getFlattened(JsonNode model, JsonNode models) {
@@ -84,17 +156,36 @@ public class SchemaTransformer {
             } catch (JsonProcessingException ignored){}
         }
 
-        String flattened = serializeExisting(model);
+        String flattened = serializeCanonical(model);
 
         validate(model);
 
         return flattened;
     }
 
+    /**
+     * Initialize the json schema validator ahead of the first schema transformation
+     */
+    public static void initialize() {
+        try {
+            getSchemaFactory();
+        } catch (ExceptionInInitializerError | NoClassDefFoundError e) {
+            LOG.warn("Could not initialize the json schema validator, generated schemas will not be validated", e);
+        }
+    }
+
+    // the factory is expensive to build and thread-safe once built
+    private static synchronized JsonSchemaFactory getSchemaFactory() {
+        if (schemaFactory == null) {
+            schemaFactory = JsonSchemaFactory.byDefault();
+        }
+        return schemaFactory;
+    }
+
     private void validate(JsonNode rootNode) {
         final JsonSchemaFactory factory;
         try {
-            factory = JsonSchemaFactory.byDefault();
+            factory = getSchemaFactory();
             factory.getJsonSchema(rootNode);
         } catch (ProcessingException e) {
             throw new IllegalStateException("Invalid schema json was generated", e);
@@ -169,6 +260,14 @@ public class SchemaTransformer {
         }
     }
 
+    private String serializeCanonical(JsonNode root) {
+        try {
+            return CANONICAL_MAPPER.writeValueAsString(CANONICAL_MAPPER.treeToValue(root, Object.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize generated schema json", e);
+        }
+    }
+
     public static String getSchemaName(String refVal) {
         String schemaName;
         try {
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerResolver;
+import io.swagger.parser.util.SwaggerDeserializer;
+import io.swagger.util.Json;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads a Swagger 2.0 json document with the Jackson streaming API. Each path and definition is bound on its own as it
+ * is read, so the document is never held as a tree next to the object graph built from it. The whole graph is still
+ * built before the import starts, the importer works on the complete definition
+ */
+public class StreamingSwaggerReader {
+    private final ObjectMapper mapper = Json.mapper();
+
+    /**
+     * @return the definition, or empty if the document is not a Swagger 2.0 json document
+     */
+    public Optional<Swagger> read(File file) throws IOException {
+        final ObjectNode header = mapper.createObjectNode();
+        Map<String, Path> paths = null;
+        Map<String, Model> definitions = null;
+
+        try (JsonParser parser = mapper.getFactory().createParser(new BufferedInputStream(new FileInputStream(file)))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.empty();
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if (field.equals("paths") && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    paths = new LinkedHashMap<>();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String path = parser.getCurrentName();
+                        parser.nextToken();
+                        paths.put(path, mapper.readValue(parser, Path.class));
+                    }
+                } else if (field.equals("definitions") && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    definitions = new LinkedHashMap<>();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String name = parser.getCurrentName();
+                        parser.nextToken();
+                        definitions.put(name, mapper.readValue(parser, Model.class));
+                    }
+                } else {
+                    header.set(field, mapper.readTree(parser));
+                }
+            }
+        }
+
+        if (!"2.0".equals(header.path("swagger").asText())) {
+            return Optional.empty();
+        }
+
+        // the remaining fields are small, bind them the way the parser does
+        final Swagger swagger = new SwaggerDeserializer().deserialize(header).getSwagger();
+        if (swagger == null) {
+            return Optional.empty();
+        }
+        swagger.setPaths(paths);
+        swagger.setDefinitions(definitions);
+
+        return Optional.of(new SwaggerResolver(swagger, null, file.getPath()).resolve());
+    }
+}
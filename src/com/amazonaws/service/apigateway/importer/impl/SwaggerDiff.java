@@ -0,0 +1,148 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
+import io.swagger.models.RefModel;
+import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.util.Json;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Difference between the definitions of two versions of a swagger document
+ */
+public class SwaggerDiff {
+    private final Set<String> changedDefinitions = new HashSet<>();
+    private final Set<String> affectedDefinitions = new HashSet<>();
+    private final SchemaTransformer transformer = new SchemaTransformer();
+
+    public SwaggerDiff(Swagger previous, Swagger current) {
+        final Map<String, Model> previousDefinitions = getDefinitions(previous);
+        final Map<String, Model> currentDefinitions = getDefinitions(current);
+
+        for (Map.Entry<String, Model> entry : currentDefinitions.entrySet()) {
+            final Model previousModel = previousDefinitions.get(entry.getKey());
+
+            if (previousModel == null || !Objects.equals(Json.mapper().valueToTree(previousModel),
+                                                         Json.mapper().valueToTree(entry.getValue()))) {
+                changedDefinitions.add(entry.getKey());
+            }
+        }
+
+        // a definition removed from the document also changes the schema of every definition referencing it
+        final Set<String> roots = new HashSet<>(changedDefinitions);
+        previousDefinitions.keySet().stream().filter(d -> !currentDefinitions.containsKey(d)).forEach(roots::add);
+
+        affectedDefinitions.addAll(getDependents(roots, currentDefinitions));
+        affectedDefinitions.addAll(changedDefinitions);
+    }
+
+    /**
+     * @return the names of the definitions added or modified in the current document
+     */
+    public Set<String> getChangedDefinitions() {
+        return Collections.unmodifiableSet(changedDefinitions);
+    }
+
+    /**
+     * @return the names of the definitions whose flattened schema may differ from the previous document: the changed
+     * definitions and every definition referencing one of them, directly or transitively
+     */
+    public Set<String> getAffectedDefinitions() {
+        return Collections.unmodifiableSet(affectedDefinitions);
+    }
+
+    /**
+     * Check if an inline body or response schema of an operation references an affected definition. The models
+     * generated from such schemas must be regenerated even if the operation itself is unchanged
+     */
+    public boolean isAffected(Operation op) {
+        if (op.getParameters() != null) {
+            for (Parameter p : op.getParameters()) {
+                if (p instanceof BodyParameter) {
+                    final Model schema = ((BodyParameter) p).getSchema();
+
+                    if (schema != null && !(schema instanceof RefModel) && referencesAffected(schema)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        if (op.getResponses() != null) {
+            for (Response response : op.getResponses().values()) {
+                if (response.getSchema() != null && !(response.getSchema() instanceof RefProperty)
+                        && referencesAffected(response.getSchema())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean referencesAffected(Object schema) {
+        try {
+            final Set<String> references = transformer.getReferences(Json.mapper().writeValueAsString(schema));
+            return references.stream().anyMatch(affectedDefinitions::contains);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not process schema", e);
+        }
+    }
+
+    /*
+     * Walk the reverse reference graph from the given definitions
+     */
+    private Set<String> getDependents(Set<String> roots, Map<String, Model> definitions) {
+        final Map<String, Set<String>> graph;
+        try {
+            graph = transformer.getReferenceGraph(Json.mapper().writeValueAsString(definitions));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not process definitions", e);
+        }
+
+        final Set<String> dependents = new HashSet<>();
+        final Deque<String> queue = new ArrayDeque<>(roots);
+
+        while (!queue.isEmpty()) {
+            final String name = queue.pop();
+
+            graph.forEach((definition, references) -> {
+                if (references.contains(name) && dependents.add(definition)) {
+                    queue.push(definition);
+                }
+            });
+        }
+
+        return dependents;
+    }
+
+    private Map<String, Model> getDefinitions(Swagger swagger) {
+        return swagger.getDefinitions() == null ? Collections.emptyMap() : swagger.getDefinitions();
+    }
+}
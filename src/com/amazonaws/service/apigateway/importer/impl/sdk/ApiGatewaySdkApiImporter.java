@@ -14,11 +14,17 @@
  */
 package com.amazonaws.service.apigateway.importer.impl.sdk;
 
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.service.apigateway.importer.impl.SchemaTransformer;
+import com.amazonaws.service.apigateway.importer.util.StartupTimer;
 import com.amazonaws.services.apigateway.model.ApiGateway;
 import com.amazonaws.services.apigateway.model.CreateDeploymentInput;
 import com.amazonaws.services.apigateway.model.CreateModelInput;
 import com.amazonaws.services.apigateway.model.CreateResourceInput;
 import com.amazonaws.services.apigateway.model.CreateRestApiInput;
+import com.amazonaws.services.apigateway.model.Method;
 import com.amazonaws.services.apigateway.model.Model;
 import com.amazonaws.services.apigateway.model.Models;
 import com.amazonaws.services.apigateway.model.NotFoundException;
@@ -27,15 +33,24 @@ import com.amazonaws.services.apigateway.model.Resources;
 import com.amazonaws.services.apigateway.model.RestApi;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createPatchDocument;
@@ -45,23 +60,93 @@ public class ApiGatewaySdkApiImporter {
 
     private static final Log LOG = LogFactory.getLog(ApiGatewaySdkApiImporter.class);
 
-    @Inject
+    // deployments record the fingerprint of the definition they were created from in their description
+    private static final String DEPLOYMENT_FINGERPRINT_PREFIX = "Imported definition ";
+
+    public static final int DEFAULT_CLEANUP_CONCURRENCY = 4;
+
     protected ApiGateway apiGateway;
 
-    // keep track of the models created/updated from the definition file. Any orphaned models left in the API will be deleted
-    protected HashSet<String> processedModels = new HashSet<>();
+    private final RequestStats requestStats = new RequestStats();
+
+    // optional local store of the state last applied to each api
+    @Inject(optional = true)
+    protected ApiSnapshotStore snapshotStore;
+
+    @Inject(optional = true)
+    private StartupTimer startupTimer;
+
+    // number of deletions issued concurrently during cleanup
+    @Inject(optional = true)
+    @Named("cleanupConcurrency")
+    private int cleanupConcurrency = DEFAULT_CLEANUP_CONCURRENCY;
+
+    @Inject
+    protected void setApiGateway(ApiGateway apiGateway) {
+        // count the requests of this importer, on top of any rate limiting of the shared client
+        this.apiGateway = RateLimitedApiGateway.wrap(apiGateway, null, requestStats);
+    }
+
+    /**
+     * @return number and size of the requests sent by this importer so far
+     */
+    public RequestStats getRequestStats() {
+        return requestStats;
+    }
 
     public void deleteApi(String apiId) {
         deleteApi(apiGateway.getRestApiById(apiId));
     }
 
     public void deploy(String apiId, String deploymentStage) {
+        deploy(apiId, deploymentStage, null, true);
+    }
+
+    /**
+     * Deploy the API to a stage, unless the stage already serves a deployment of the same definition
+     *
+     * @param fingerprint fingerprint of the definition applied to the API, null if unknown
+     * @param force deploy even if the stage serves a deployment with the same fingerprint
+     */
+    protected void deploy(String apiId, String deploymentStage, String fingerprint, boolean force) {
+        final RestApi api = apiGateway.getRestApiById(apiId);
+
+        if (fingerprint != null && !force && fingerprint.equals(getDeployedFingerprint(api, deploymentStage).orElse(null))) {
+            LOG.info(String.format("Stage %s of API %s is already deployed from this definition, skipping deployment",
+                                   deploymentStage, apiId));
+            return;
+        }
+
         LOG.info(String.format("Creating deployment for API %s and stage %s", apiId, deploymentStage));
 
         CreateDeploymentInput input = new CreateDeploymentInput();
         input.setStageName(deploymentStage);
+        if (fingerprint != null) {
+            input.setDescription(DEPLOYMENT_FINGERPRINT_PREFIX + fingerprint);
+        }
+
+        api.createDeployment(input);
+    }
+
+    /*
+     * Fingerprint of the definition the current deployment of a stage was created from, if the importer created it
+     */
+    private Optional<String> getDeployedFingerprint(RestApi api, String deploymentStage) {
+        try {
+            final String deploymentId = api.getStageByName(deploymentStage).getDeploymentId();
+
+            if (deploymentId != null) {
+                final String description = api.getDeploymentById(deploymentId).getDescription();
 
-        apiGateway.getRestApiById(apiId).createDeployment(input);
+                if (description != null && description.startsWith(DEPLOYMENT_FINGERPRINT_PREFIX)) {
+                    return Optional.of(description.substring(DEPLOYMENT_FINGERPRINT_PREFIX.length()));
+                }
+            }
+        } catch (NotFoundException e) {
+            // the stage is created by its first deployment
+        }
+
+        return Optional.empty();
     }
 
     protected RestApi createApi(String name, String description) {
@@ -74,17 +159,17 @@ public class ApiGatewaySdkApiImporter {
         return apiGateway.createRestApi(input);
     }
 
-    protected void rollback(RestApi api) {
-        deleteApi(api);
-    }
-
     protected void deleteApi(RestApi api) {
         LOG.info("Deleting API " + api.getId());
         api.deleteRestApi();
     }
 
     protected Optional<Resource> getRootResource(RestApi api) {
-        for (Resource r : buildResourceList(api)) {
+        return getRootResource(buildResourceList(api));
+    }
+
+    protected Optional<Resource> getRootResource(List<Resource> resources) {
+        for (Resource r : resources) {
             if ("/".equals(r.getPath())) {
                 return Optional.of(r);
             }
@@ -94,6 +179,14 @@ public class ApiGatewaySdkApiImporter {
 
     // todo: optimize number of calls to this as it is an expensive operation
     protected List<Resource> buildResourceList(RestApi api) {
+        return buildResourceList(api, listed -> false);
+    }
+
+    /**
+     * List the resources of an api, stopping at the first page after which the listed resources are complete. API
+     * Gateway only lists all the resources of an api, so this saves the remaining pages when only some are needed
+     */
+    protected List<Resource> buildResourceList(RestApi api, Predicate<List<Resource>> complete) {
         List<Resource> resourceList = new ArrayList<>();
 
         Resources resources = api.getResources();
@@ -102,7 +195,7 @@ public class ApiGatewaySdkApiImporter {
         LOG.debug("Building list of resources. Stack trace: ", new Throwable());
 
         final RateLimiter rl = RateLimiter.create(2);
-        while (resources._isLinkAvailable("next")) {
+        while (!complete.test(resourceList) && resources._isLinkAvailable("next")) {
             rl.acquire();
             resources = resources.getNext();
             resourceList.addAll(resources.getItem());
@@ -121,6 +214,82 @@ public class ApiGatewaySdkApiImporter {
         });
     }
 
+    /**
+     * Get the API referenced by a journal of a previous import, verifying it still exists
+     */
+    protected RestApi getJournaledApi(ImportJournal journal) {
+        final String apiId = journal.getApiId().get();
+
+        try {
+            return getApi(apiId);
+        } catch (NotFoundException e) {
+            throw new IllegalStateException("API " + apiId + " referenced by the import journal no longer exists", e);
+        }
+    }
+
+    /**
+     * Delete the default models of a newly created API unless a previous attempt already did so
+     */
+    protected void deleteDefaultModelsOnce(ImportContext ctx, RestApi api) {
+        if (!ctx.getJournal().isCompleted(ImportJournal.STEP, "deleteDefaultModels")) {
+            deleteDefaultModels(api);
+            ctx.getJournal().recordCompleted(ImportJournal.STEP, "deleteDefaultModels");
+        }
+    }
+
+    /**
+     * Load the snapshot of the state last applied to the api, if it is still consistent with the live api.
+     * The snapshot is invalidated while the update runs, so a failed update falls back to the live listing next time
+     */
+    protected Optional<ApiSnapshot> loadSnapshot(RestApi api) {
+        if (snapshotStore == null) {
+            return Optional.empty();
+        }
+
+        Optional<ApiSnapshot> snapshot = snapshotStore.load(api.getId());
+        snapshotStore.invalidate(api.getId());
+
+        if (snapshot.isPresent() && !isSnapshotCurrent(api, snapshot.get())) {
+            LOG.info("Snapshot of API " + api.getId() + " does not match the live API, ignoring it");
+            return Optional.empty();
+        }
+
+        return snapshot;
+    }
+
+    protected void saveSnapshot(ApiSnapshot snapshot) {
+        if (snapshotStore != null) {
+            snapshotStore.save(snapshot);
+        }
+    }
+
+    /*
+     * Spot check the snapshot against the first page of resources and models, which costs two requests instead of a
+     * full listing. This detects a deleted or recreated api and most edits made outside of the importer
+     */
+    private boolean isSnapshotCurrent(RestApi api, ApiSnapshot snapshot) {
+        if (!api.getId().equals(snapshot.getApiId()) || !snapshot.getResources().containsKey("/")) {
+            return false;
+        }
+
+        for (Resource r : api.getResources().getItem()) {
+            ApiSnapshot.ResourceState state = snapshot.getResources().get(r.getPath());
+
+            if (state == null || !state.getId().equals(r.getId())) {
+                return false;
+            }
+
+            Map<String, Method> methods = r.getResourceMethods();
+            Set<String> liveMethods = methods == null ? new HashSet<>() : methods.keySet();
+
+            if (!liveMethods.equals(state.getMethods().keySet())) {
+                return false;
+            }
+        }
+
+        return api.getModels().getItem().stream().allMatch(m -> snapshot.getModels().containsKey(m.getName()));
+    }
+
     protected List<Model> buildModelList(RestApi api) {
         List<Model> modelList = new ArrayList<>();
 
@@ -139,8 +308,8 @@ public class ApiGatewaySdkApiImporter {
         return apiGateway.getRestApiById(id);
     }
 
-    protected void createModel(RestApi api, String modelName, String description, String schema, String modelContentType) {
-        this.processedModels.add(modelName);
+    protected void createModel(ImportContext ctx, RestApi api, String modelName, String description, String schema, String modelContentType) {
+        ctx.getProcessedModels().add(modelName);
 
         CreateModelInput input = new CreateModelInput();
 
@@ -152,20 +321,74 @@ public class ApiGatewaySdkApiImporter {
         api.createModel(input);
     }
 
-    protected void updateModel(RestApi api, String modelName, String schema) {
-        this.processedModels.add(modelName);
+    protected void updateModel(ImportContext ctx, RestApi api, String modelName, String schema) {
+        updateModel(ctx, api.getModelByName(modelName), modelName, schema);
+    }
+
+    /*
+     * Replace the schema of the model, unless the model already has an equivalent schema
+     */
+    protected void updateModel(ImportContext ctx, Model model, String modelName, String schema) {
+        ctx.getProcessedModels().add(modelName);
 
-        api.getModelByName(modelName).updateModel(createPatchDocument(createReplaceOperation("/schema", schema)));
+        if (model.getSchema() != null && SchemaTransformer.canonicalize(model.getSchema()).equals(SchemaTransformer.canonicalize(schema))) {
+            LOG.info("Model " + modelName + " is unchanged, skipping");
+            return;
+        }
+
+        model.updateModel(createPatchDocument(createReplaceOperation("/schema", schema)));
     }
 
     protected void cleanupModels(RestApi api, Set<String> models) {
         List<Model> existingModels = buildModelList(api);
         Stream<Model> modelsToDelete = existingModels.stream().filter(model -> !models.contains(model.getName()));
 
-        modelsToDelete.forEach(model -> {
+        deleteConcurrently(modelsToDelete.map(model -> (Runnable) () -> {
             LOG.info("Removing deleted model " + model.getName());
             model.deleteModel();
-        });
+        }).collect(Collectors.toList()));
+    }
+
+    /**
+     * Run deletions that don't depend on each other, up to the configured cleanup concurrency at a time. Returns once
+     * all of them completed, rethrowing the first failure
+     */
+    protected void deleteConcurrently(List<Runnable> deletions) {
+        if (cleanupConcurrency <= 1 || deletions.size() <= 1) {
+            deletions.forEach(Runnable::run);
+            return;
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.min(cleanupConcurrency, deletions.size()));
+        try {
+            final List<Future<?>> futures = deletions.stream().map(pool::submit).collect(Collectors.toList());
+
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for a task submitted to a pool, rethrowing its failure as it was thrown
+     */
+    protected static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a task", e);
+        }
     }
 
     protected Optional<Resource> getResource(String parentResourceId, String pathPart, List<Resource> resources) {
@@ -200,7 +423,8 @@ public class ApiGatewaySdkApiImporter {
     }
 
     protected boolean methodExists(Resource resource, String httpMethod) {
-        return resource.getResourceMethods().get(httpMethod.toUpperCase()) != null;
+        final Map<String, Method> methods = resource.getResourceMethods();
+        return methods != null && methods.get(httpMethod.toUpperCase()) != null;
     }
 
     protected void deleteResource(Resource resource) {
@@ -234,21 +458,110 @@ public class ApiGatewaySdkApiImporter {
         return result;
     }
 
+    /**
+     * Get the path of a resource as written in the definition, without the base path
+     * @return the path, or empty if the resource is not below the base path
+     */
+    protected Optional<String> getDefinitionPath(String basePath, String resourcePath) {
+        final String base = buildResourcePath(basePath, "");
+
+        if (base.equals("/")) {
+            return Optional.of(resourcePath);
+        } else if (resourcePath.equals(base)) {
+            return Optional.of("/");
+        } else if (resourcePath.startsWith(base + "/")) {
+            return Optional.of(resourcePath.substring(base.length()));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Check if cleanup may delete the methods of a resource
+     */
+    protected boolean canDeleteMethods(ImportScope scope, String basePath, String resourcePath) {
+        final Optional<String> path = getDefinitionPath(basePath, resourcePath);
+        return !scope.isPartial() || (path.isPresent() && scope.canDelete(path.get()));
+    }
+
+    /**
+     * Get the resources cleanup may delete. Deleting a resource also deletes everything below it, so a resource is only
+     * deletable if it and all of its descendants are in scope
+     * @param resourcePaths full paths of all the resources of the api
+     */
+    protected Predicate<String> getDeletableResources(ImportScope scope, String basePath, Collection<String> resourcePaths) {
+        if (!scope.isPartial()) {
+            return path -> true;
+        }
+
+        final Set<String> blocked = new HashSet<>();
+
+        for (String resourcePath : resourcePaths) {
+            if (!canDeleteMethods(scope, basePath, resourcePath)) {
+                // ancestors of a blocked resource are already blocked
+                String path = resourcePath;
+                while (path != null && blocked.add(path)) {
+                    path = getParentPath(path);
+                }
+            }
+        }
+
+        return path -> !blocked.contains(path);
+    }
+
+    /**
+     * Get the resources to delete during cleanup, computed on the resource tree. Deleting a resource also deletes
+     * everything below it, so only the top-most orphan of each removed subtree is returned
+     * @param resources all the resources of the api
+     * @param paths full paths of the resources in the definition, their ancestors are kept as well
+     * @param deletable the resources cleanup may delete
+     */
+    protected List<Resource> getOrphanedResources(List<Resource> resources, Collection<String> paths, Predicate<String> deletable) {
+        final Set<String> kept = new HashSet<>();
+        for (String path : paths) {
+            while (path != null && kept.add(path)) {
+                path = getParentPath(path);
+            }
+        }
+
+        final Set<String> orphanIds = new HashSet<>();
+        resources.stream()
+                .filter(r -> !r.getPath().equals("/") && !kept.contains(r.getPath()) && deletable.test(r.getPath()))
+                .forEach(r -> orphanIds.add(r.getId()));
+
+        return resources.stream()
+                .filter(r -> orphanIds.contains(r.getId()) && !orphanIds.contains(r.getParentId()))
+                .collect(Collectors.toList());
+    }
+
+    protected String getParentPath(String path) {
+        if (path.equals("/")) {
+            return null;
+        }
+        final int i = path.lastIndexOf('/');
+        return i == 0 ? "/" : path.substring(0, i);
+    }
+
     private String trimSlashes(String path) {
         return StringUtils.removeEnd(StringUtils.removeStart(path, "/"), "/");
     }
 
-    protected Resource createResource(RestApi api, String parentResourceId, String part, List<Resource> resources) {
-        final Optional<Resource> existingResource = getResource(parentResourceId, part, resources);
+    /**
+     * Get the child resource of a parent, creating it if it doesn't exist. The parent is used as it was listed or
+     * created, so it is only fetched again if it doesn't carry the link to create a child
+     * @param resources the resource index, the created resource is added to it
+     */
+    protected Resource createResource(RestApi api, Resource parent, String part, List<Resource> resources) {
+        final Optional<Resource> existingResource = getResource(parent.getId(), part, resources);
 
         // create resource if doesn't exist
         if (!existingResource.isPresent()) {
 
-            LOG.info("Creating resource '" + part + "' on " + parentResourceId);
+            LOG.info("Creating resource '" + part + "' on " + parent.getId());
 
             CreateResourceInput input = new CreateResourceInput();
             input.setPathPart(part);
-            Resource resource = api.getResourceById(parentResourceId);
+            Resource resource = parent._isLinkAvailable("resource:create-child") ? parent : api.getResourceById(parent.getId());
 
             Resource created = resource.createResource(input);
 
@@ -260,6 +573,15 @@ public class ApiGatewaySdkApiImporter {
         }
     }
 
+    /**
+     * Record a step of the startup breakdown, if the importer is timed
+     */
+    protected void markStartup(String step) {
+        if (startupTimer != null) {
+            startupTimer.mark(step);
+        }
+    }
+
     protected String getStringValue(Object in) {
         return in == null ? null : String.valueOf(in);  // use null value instead of "null"
     }
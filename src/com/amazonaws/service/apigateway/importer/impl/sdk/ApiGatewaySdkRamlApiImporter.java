@@ -14,24 +14,25 @@
  */
 package com.amazonaws.service.apigateway.importer.impl.sdk;
 
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
 import com.amazonaws.service.apigateway.importer.RamlApiImporter;
 import com.amazonaws.services.apigateway.model.Integration;
-import com.amazonaws.services.apigateway.model.IntegrationType;
 import com.amazonaws.services.apigateway.model.Method;
+import com.amazonaws.services.apigateway.model.Model;
 import com.amazonaws.services.apigateway.model.MethodResponse;
-import com.amazonaws.services.apigateway.model.PatchDocument;
-import com.amazonaws.services.apigateway.model.PutIntegrationInput;
-import com.amazonaws.services.apigateway.model.PutIntegrationResponseInput;
+import com.amazonaws.services.apigateway.model.PatchOperation;
 import com.amazonaws.services.apigateway.model.PutMethodInput;
 import com.amazonaws.services.apigateway.model.PutMethodResponseInput;
 import com.amazonaws.services.apigateway.model.Resource;
 import com.amazonaws.services.apigateway.model.RestApi;
-import com.amazonaws.util.json.JSONArray;
-import com.amazonaws.util.json.JSONException;
 import com.amazonaws.util.json.JSONObject;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.raml.emitter.RamlEmitter;
 import org.raml.model.Action;
 import org.raml.model.ActionType;
 import org.raml.model.MimeType;
@@ -45,66 +46,158 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createAddOperation;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createPatchDocument;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createRemoveOperation;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createReplaceOperation;
+import static com.amazonaws.service.apigateway.importer.util.PatchUtils.escapeOperationString;
 import static java.lang.String.format;
 
 public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter implements RamlApiImporter {
 
     private static final Log LOG = LogFactory.getLog(ApiGatewaySdkRamlApiImporter.class);
 
-    private JSONObject config;
+    // resources are imported one at a time unless a higher concurrency is configured
+    public static final int DEFAULT_CONCURRENCY = 1;
 
-    // NOTE: This is the only shared state - is there a better approach? Why wasn't this used until now? Can this be
-    // reused in the swagger implementation?
-    private Set<String> models = new HashSet<>();
-    private Set<String> paths = new HashSet<>();
+    // number of resource subtrees imported concurrently
+    @Inject(optional = true)
+    @Named("ramlConcurrency")
+    private int concurrency = DEFAULT_CONCURRENCY;
 
     @Override
     public String createApi(Raml raml, String name, JSONObject config) {
-        this.config = config;
+        return createApi(raml, name, config, ImportJournal.inMemory());
+    }
+
+    @Override
+    public String createApi(Raml raml, String name, JSONObject config, ImportJournal journal) {
+        return createApi(raml, name, config, journal, ImportScope.all());
+    }
+
+    @Override
+    public String createApi(Raml raml, String name, JSONObject config, ImportJournal journal, ImportScope scope) {
+        final RamlImportContext ctx = createContext(config, journal, scope);
+        validate(ctx);
 
         // TODO: What to use as description?
         final RestApi api = createApi(getApiName(raml, name), null);
+        journal.recordApi(api.getId());
 
         LOG.info("Created API "+api.getId());
         
         try {
-            final Resource rootResource = getRootResource(api).get();
-            deleteDefaultModels(api);
-            createModels(api, raml.getSchemas(), false);
-            createResources(api, createResourcePath(api, rootResource, raml.getBasePath()),
-                             new HashMap<String, UriParameter>(), raml.getResources(), false);
+            populateApi(ctx, api, scope.apply(raml), false);
         } catch (Throwable t) {
-            LOG.error("Error creating API, rolling back", t);
-            rollback(api);
+            LOG.error("Error creating API " + api.getId(), t);
             throw t;
         }
         return api.getId();
     }
 
+    @Override
+    public String resumeApi(Raml raml, JSONObject config, ImportJournal journal) {
+        return resumeApi(raml, config, journal, ImportScope.all());
+    }
+
+    @Override
+    public String resumeApi(Raml raml, JSONObject config, ImportJournal journal, ImportScope scope) {
+        final RamlImportContext ctx = createContext(config, journal, scope);
+        validate(ctx);
+
+        final RestApi api = getJournaledApi(journal);
+
+        LOG.info("Resuming import of API " + api.getId());
+
+        // anything a previous attempt left behind is updated in place rather than created again
+        populateApi(ctx, api, scope.apply(raml), true);
+
+        return api.getId();
+    }
+
+    private void populateApi(RamlImportContext ctx, RestApi api, Raml raml, boolean update) {
+        ctx.getResources().addAll(buildResourceList(api));
+
+        final Resource rootResource = getRootResource(ctx.getResources()).get();
+        deleteDefaultModelsOnce(ctx, api);
+        if (update) {
+            ctx.getSchemas().addExistingModels(buildModelNames(api));
+        }
+        createModels(ctx, api, raml.getSchemas(), update);
+        createResources(ctx, api, createResourcePath(ctx, api, rootResource, raml.getBasePath()),
+                         new HashMap<String, UriParameter>(), raml.getResources(), update);
+    }
+
     @Override
     public void updateApi(String apiId, Raml raml, JSONObject config) {
-        this.config = config;
+        updateApi(apiId, raml, config, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, Raml definition, JSONObject config, ImportScope scope) {
+        final RamlImportContext ctx = createContext(config, ImportJournal.inMemory(), scope);
+        validate(ctx);
 
+        final Raml raml = scope.apply(definition);
         RestApi api = getApi(apiId);
-        Optional<Resource> rootResource = getRootResource(api);
+        ctx.getResources().addAll(buildResourceList(api));
+        Optional<Resource> rootResource = getRootResource(ctx.getResources());
+        ctx.getSchemas().addExistingModels(buildModelNames(api));
 
-        createModels(api, raml.getSchemas(), true);
-        createResources(api, createResourcePath(api, rootResource.get(), raml.getBasePath()),
+        createModels(ctx, api, raml.getSchemas(), true);
+        createResources(ctx, api, createResourcePath(ctx, api, rootResource.get(), raml.getBasePath()),
                          new HashMap<String, UriParameter>(), raml.getResources(), true);
 
-        cleanupResources(api, this.paths);
-        cleanupModels(api, this.models);
+        cleanupResources(ctx, api, raml.getBasePath());
+        if (!scope.isPartial()) {
+            cleanupModels(api, ctx.getProcessedModels());
+        }
+    }
+
+    @Override
+    public void deploy(String apiId, String deploymentStage, Raml raml, JSONObject config, boolean force) {
+        final String fingerprint = ApiSnapshot.fingerprint(new RamlEmitter().dump(raml), config == null ? "" : config.toString());
+
+        deploy(apiId, deploymentStage, fingerprint, force);
+    }
+
+    private RamlImportContext createContext(JSONObject config, ImportJournal journal, ImportScope scope) {
+        if (scope.isPartial()) {
+            LOG.info("Limiting the import to " + scope);
+        }
+
+        final RamlConfig ramlConfig = RamlConfig.parse(config);
+        ramlConfig.getWarnings().forEach(warning -> LOG.warn("API Gateway config: " + warning));
+
+        return new RamlImportContext(ramlConfig, journal, scope);
+    }
+
+    /*
+     * Report the errors found while decoding the config before the first call to API Gateway, so that all of them are
+     * reported at once instead of failing the import at the first method using one
+     */
+    private void validate(RamlImportContext ctx) {
+        final List<String> errors = ctx.getConfig().getErrors();
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(format("API Gateway config has %d error(s):%n  %s",
+                                                      errors.size(), String.join(format("%n  "), errors)));
+        }
+
+        markStartup("validate definition");
     }
 
     private String getApiName (Raml raml, String fileName) {
@@ -112,83 +205,130 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         return StringUtils.isNotBlank(title) ? title : fileName;
     }
 
-    private void createModels(RestApi api, List<Map<String, String>> schemas, boolean update) {
+    private List<String> buildModelNames(RestApi api) {
+        return buildModelList(api).stream().map(Model::getName).collect(Collectors.toList());
+    }
+
+    private void createModels(RamlImportContext ctx, RestApi api, List<Map<String, String>> schemas, boolean update) {
         for (Map<String, String> entries : schemas) {
             for (Map.Entry<String, String> entry : entries.entrySet()) {
                 final String schemaName = entry.getKey();
-                final String schemaValue = entry.getValue();
 
-                models.add(schemaName);
+                ctx.getProcessedModels().add(schemaName);
+                // inline copies of the schema reference this model instead of creating their own
+                ctx.getSchemas().registerNamed(schemaName, entry.getValue());
+
+                final RamlSchemaRegistry.Schema schema = ctx.getSchemas().canonicalize(entry.getValue());
+                final boolean exists = ctx.getSchemas().exists(schemaName);
 
-                if (update && getModel(api, schemaName).isPresent()) {
-                    updateModel(api, schemaName, schemaValue);
-                } else {
-                    createModel(api, schemaName, schemaValue);
+                if (ctx.getJournal().isCompleted(ImportJournal.MODEL, schemaName) && exists) {
+                    LOG.info("Model " + schemaName + " was imported by a previous attempt, skipping");
+                } else if (update && exists) {
+                    updateModel(ctx, api, schemaName, schema.getContent());
+                } else if (schema.getContentType().isPresent()) {
+                    // TODO: What to put as description?
+                    createModel(ctx, api, schemaName, null, schema.getContent(), schema.getContentType().get());
                 }
+
+                ctx.getJournal().recordCompleted(ImportJournal.MODEL, schemaName);
             }
         }
     }
 
-    private void createModel(RestApi api, String schemaName, String schemaValue) {
-        // HACK: Attempt to detect JSON/XML bodies.
-        final Integer openTagIndex = schemaValue.indexOf('<');
-        final Integer openJsonIndex = schemaValue.indexOf('{');
-
-        // Is this possible or is the parser validating schemas?
-        if (openTagIndex == openJsonIndex) {
+    /*
+     * Create the resource tree. Once a resource exists, the subtrees of its children are submitted to a fixed pool of
+     * the configured concurrency. Subtrees never wait for each other, only the calling thread waits for all of them
+     */
+    private void createResources(RamlImportContext ctx, RestApi api, Resource rootResource, Map<String, UriParameter> ancestorRequestParameters,
+                                Map<String, org.raml.model.Resource> resources, boolean update) {
+        if (concurrency <= 1) {
+            createResources(ctx, api, rootResource, ancestorRequestParameters, resources, update, Runnable::run);
             return;
         }
 
-        final boolean isJson = openJsonIndex > -1 && (openTagIndex == -1 || openJsonIndex < openTagIndex);
+        final ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        // a subtree submits its children before it completes, so once the queue is drained every subtree is done
+        final Queue<Future<?>> pending = new ConcurrentLinkedQueue<>();
+
+        try {
+            createResources(ctx, api, rootResource, ancestorRequestParameters, resources, update,
+                            subtree -> pending.add(pool.submit(subtree)));
 
-        // TODO: What to put as description?
-        createModel(api, schemaName, null, schemaValue, isJson ? "application/json" : "text/xml");
+            Future<?> next;
+            while ((next = pending.poll()) != null) {
+                await(next);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
-    private void createResources(RestApi api, Resource rootResource, Map<String, UriParameter> ancestorRequestParameters,
-                                Map<String, org.raml.model.Resource> resources, boolean update) {
+    private void createResources(RamlImportContext ctx, RestApi api, Resource rootResource, Map<String, UriParameter> ancestorRequestParameters,
+                                Map<String, org.raml.model.Resource> resources, boolean update, Consumer<Runnable> submit) {
         for (Map.Entry<String, org.raml.model.Resource> entry : resources.entrySet()) {
-            final org.raml.model.Resource resource = entry.getValue();
-            final Resource parentResource = createResourcePath(api, rootResource, entry.getKey());
+            submit.accept(() -> createSubtree(ctx, api, rootResource, ancestorRequestParameters, entry.getKey(),
+                                              entry.getValue(), update, submit));
+        }
+    }
 
-            Map<String, UriParameter> requestParameters = new HashMap<String, UriParameter>(resource.getUriParameters());
-            requestParameters.putAll(ancestorRequestParameters);
+    private void createSubtree(RamlImportContext ctx, RestApi api, Resource rootResource, Map<String, UriParameter> ancestorRequestParameters,
+                               String path, org.raml.model.Resource resource, boolean update, Consumer<Runnable> submit) {
+        final Resource parentResource = createResourcePath(ctx, api, rootResource, path);
 
-            createMethods(api, parentResource, requestParameters, resource.getActions(), update);
-            createResources(api, parentResource, requestParameters, resource.getResources(), update);
+        // parameters of the ancestors are inherited, each subtree works on its own copy
+        Map<String, UriParameter> requestParameters = new HashMap<String, UriParameter>(resource.getUriParameters());
+        requestParameters.putAll(ancestorRequestParameters);
+
+        // resources outside of the scope are only kept as the ancestors of those in it
+        if (ctx.getScope().includesPath(resource.getUri())) {
+            createMethods(ctx, api, parentResource, requestParameters, resource.getActions(), update);
         }
+        createResources(ctx, api, parentResource, requestParameters, resource.getResources(), update, submit);
     }
 
-    private void cleanupResources(RestApi api, Set<String> paths) {
-        buildResourceList(api)
-                .stream()
-                .filter(resource -> !resource.getPath().equals("/") && !paths.contains(resource.getPath()))
-                .forEach(resource -> {
-                    LOG.info("Removing deleted resource " + resource.getPath());
-                    deleteResource(resource);
-                });
+    private void cleanupResources(RamlImportContext ctx, RestApi api, String basePath) {
+        // nothing has been deleted since the index was listed, so it holds every resource of the api
+        final List<Resource> resources = ctx.getResources();
+        final Predicate<String> deletable = getDeletableResources(ctx.getScope(), basePath,
+                                                                  resources.stream().map(Resource::getPath).collect(Collectors.toList()));
+
+        // deleting the top-most removed resource also deletes its descendants
+        getOrphanedResources(resources, ctx.getPaths(), deletable).forEach(resource -> {
+            LOG.info("Removing deleted resource " + resource.getPath());
+            deleteResource(resource);
+        });
     }
 
-    private Resource createResourcePath(RestApi api, Resource resource, String fullPath) {
+    private Resource createResourcePath(RamlImportContext ctx, RestApi api, Resource resource, String fullPath) {
         final String[] parts = fullPath.split("/");
 
         Resource parentResource = resource;
 
-        List<Resource> resources = buildResourceList(api);
-
         for (int i = 1; i < parts.length; i++) {
-            parentResource = createResource(api, parentResource.getId(), parts[i], resources);
+            // subtrees may share the first parts of their paths, each child of a resource is created only once
+            synchronized (ctx.getResourceLock(parentResource.getId(), parts[i])) {
+                parentResource = createResource(api, parentResource, parts[i], ctx.getResources());
+            }
 
-            paths.add(parentResource.getPath());
+            ctx.getPaths().add(parentResource.getPath());
         }
 
         return parentResource;
     }
 
-    private void createMethods(RestApi api, Resource resource, Map<String, UriParameter> requestParameters,
+    private void createMethods(RamlImportContext ctx, RestApi api, Resource resource, Map<String, UriParameter> requestParameters,
                                Map<ActionType, Action> actions, boolean update) {
         for (Map.Entry<ActionType, Action> entry : actions.entrySet()) {
-            createMethod(api, resource, entry.getKey(), entry.getValue(), requestParameters, update);
+            final String journalKey = resource.getPath() + " " + entry.getKey();
+
+            if (ctx.getJournal().isCompleted(ImportJournal.METHOD, journalKey) && methodExists(resource, entry.getKey().toString())) {
+                LOG.info(format("Method %s was imported by a previous attempt, skipping", journalKey));
+                continue;
+            }
+
+            createMethod(ctx, api, resource, entry.getKey(), entry.getValue(), requestParameters, update);
+
+            ctx.getJournal().recordCompleted(ImportJournal.METHOD, journalKey);
         }
 
         if (update) {
@@ -197,6 +337,11 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
     }
 
     private void cleanupMethods (Resource resource, Map<ActionType, Action> actions) {
+        // resources created by this update are returned without their methods, which are all in the definition
+        if (resource.getResourceMethods() == null) {
+            return;
+        }
+
         final HashSet<String> methods = new HashSet<>();
 
         for (ActionType action : actions.keySet()) {
@@ -214,33 +359,32 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         }
     }
 
-    private void createMethod(final RestApi api, final Resource resource, final ActionType httpMethod, final Action action,
+    private void createMethod(RamlImportContext ctx, final RestApi api, final Resource resource, final ActionType httpMethod, final Action action,
                               final Map<String, UriParameter> requestParameters, boolean update) {
         Method method;
 
+        // every change to an existing method is sent in a single patch
+        final List<PatchOperation> ops = new ArrayList<>();
+        final Map<String, Boolean> parameters = getRequestParameters(requestParameters, action);
+
         if (update && methodExists(resource, httpMethod.toString())) {
             method = resource.getMethodByHttpMethod(httpMethod.toString());
 
-            PatchDocument pd = createPatchDocument(
-                    createReplaceOperation("/authorizationType", getAuthorizationTypeFromConfig(resource, httpMethod.toString(), this.config)),
-                    createReplaceOperation("/apiKeyRequired", "false"));
-
-            method.updateMethod(pd);
+            ops.add(createReplaceOperation("/authorizationType", ctx.getConfig().getAuthorizationType(resource.getPath(), httpMethod.toString())));
+            ops.add(createReplaceOperation("/apiKeyRequired", "false"));
 
             if (action.hasBody()) {
                 for (Map.Entry<String, MimeType> entry : action.getBody().entrySet()) {
                     final String mime = entry.getKey();
-                    final String modelName = createModel(api, mime, entry.getValue());
+                    final String modelName = createModel(ctx, api, mime, entry.getValue());
 
                     if (modelName != null) {
-                        method.updateMethod(createPatchDocument(createAddOperation(
-                                "/requestModels/" + escapeOperationString(mime), modelName
-                        )));
+                        ops.add(createAddOperation("/requestModels/" + escapeOperationString(mime), modelName));
                     }
                 }
             }
 
-            cleanupMethodModels(method, action.getBody());
+            cleanupMethodModels(method, action.getBody(), ops);
         } else {
             LOG.info(format("Creating method for api id %s and resource id %s with method %s", api.getId(), resource.getId(), httpMethod));
 
@@ -248,13 +392,16 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
 
             // TODO: Figure out API key.
             input.setApiKeyRequired(false);
-            input.setAuthorizationType(getAuthorizationTypeFromConfig(resource, httpMethod.toString(), this.config));
+            input.setAuthorizationType(ctx.getConfig().getAuthorizationType(resource.getPath(), httpMethod.toString()));
             input.setRequestModels(new HashMap<>());
 
+            // parameters are created along with the method rather than patched in afterwards
+            input.setRequestParameters(new HashMap<>(parameters));
+
             if (action.hasBody()) {
                 for (Map.Entry<String, MimeType> entry : action.getBody().entrySet()) {
                     final String mime = entry.getKey();
-                    final String modelName = createModel(api, mime, entry.getValue());
+                    final String modelName = createModel(ctx, api, mime, entry.getValue());
 
                     if (modelName != null) {
                         input.getRequestModels().put(mime, modelName);
@@ -265,136 +412,56 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
             method = resource.putMethod(input, httpMethod.toString());
         }
 
-        for (Map.Entry<String, UriParameter> entry : requestParameters.entrySet()) {
-            updateMethod(api, method, "path", entry.getKey(), entry.getValue().isRequired());
-        }
-
-        for (Map.Entry<String, Header> entry : action.getHeaders().entrySet()) {
-            updateMethod(api, method, "header", entry.getKey(), entry.getValue().isRequired());
-        }
-
-        for (Map.Entry<String, QueryParameter> entry : action.getQueryParameters().entrySet()) {
-            updateMethod(api, method, "querystring", entry.getKey(), entry.getValue().isRequired());
+        for (Map.Entry<String, Boolean> entry : parameters.entrySet()) {
+            updateMethod(api, method, entry.getKey(), entry.getValue(), ops);
         }
 
         if (update) {
-            cleanupMethod(method, "path", action.getResource().getUriParameters().keySet());
-            cleanupMethod(method, "header", action.getHeaders().keySet());
-            cleanupMethod(method, "querystring", action.getQueryParameters().keySet());
-        }
-
-        createIntegration(resource, method, this.config);
-
-        createMethodResponses(api, method, action.getResponses(), update);
-    }
-
-    private void createIntegration(Resource resource, Method method, JSONObject config) {
-        if (config == null) {
-            return;
+            // path parameters inherited from the ancestors are kept along with those of the resource
+            cleanupMethod(method, "path", requestParameters.keySet(), ops);
+            cleanupMethod(method, "header", action.getHeaders().keySet(), ops);
+            cleanupMethod(method, "querystring", action.getQueryParameters().keySet(), ops);
         }
 
-        try {
-            final JSONObject integ = config.getJSONObject(resource.getPath())
-                    .getJSONObject(method.getHttpMethod().toLowerCase())
-                    .getJSONObject("integration");
-
-            IntegrationType type = IntegrationType.valueOf(integ.getString("type").toUpperCase());
-
-            LOG.info("Creating integration with type " + type);
-
-            PutIntegrationInput input = new PutIntegrationInput()
-                    .withType(type)
-                    .withUri(integ.getString("uri"))
-                    .withCredentials(integ.optString("credentials"))
-                    .withHttpMethod(integ.optString("httpMethod"))
-                    .withRequestParameters(jsonObjectToHashMapString(integ.optJSONObject("requestParameters")))
-                    .withRequestTemplates(jsonObjectToHashMapString(integ.optJSONObject("requestTemplates")))
-                    .withCacheNamespace(integ.optString("cacheNamespace"))
-                    .withCacheKeyParameters(jsonObjectToListString(integ.optJSONArray("cacheKeyParameters")));
-
-            Integration integration = method.putIntegration(input);
-
-            createIntegrationResponses(integration, integ.optJSONObject("responses"));
-        } catch (JSONException e) {
-            LOG.info(format("Skipping integration for method %s of %s: %s", method.getHttpMethod(), resource.getPath(), e));
-        }
-    }
-
-    private void createIntegrationResponses(Integration integration, JSONObject responses) {
-        if (responses == null) {
-            return;
+        if (!ops.isEmpty()) {
+            method.updateMethod(createPatchDocument(ops));
         }
 
-        final Iterator<String> keysIterator = responses.keys();
-
-        while (keysIterator.hasNext()) {
-            String key = keysIterator.next();
-
-            try {
-                String pattern = key.equals("default") ? null : key;
-                JSONObject response = responses.getJSONObject(key);
+        createIntegration(resource, method, ctx.getConfig());
 
-                String status = (String) response.get("statusCode");
-
-                PutIntegrationResponseInput input = new PutIntegrationResponseInput()
-                        .withResponseParameters(jsonObjectToHashMapString(response.optJSONObject("responseParameters")))
-                        .withResponseTemplates(jsonObjectToHashMapString(response.optJSONObject("responseTemplates")))
-                        .withSelectionPattern(pattern);
-
-                integration.putIntegrationResponse(input, status);
-            } catch (JSONException e) {
-            }
-        }
+        createMethodResponses(ctx, api, method, action.getResponses(), update);
     }
 
-    private List<String> jsonObjectToListString (JSONArray json) {
-        if (json == null) {
-          return null;
-        }
-
-        final List<String> list = new ArrayList<>();
-
-        for (int i = 0; i < json.length(); i++) {
-            try {
-                list.add(json.getString(i));
-            } catch (JSONException e) {}
-        }
+    private void createIntegration(Resource resource, Method method, RamlConfig config) {
+        final Optional<RamlConfig.IntegrationConfig> integ = config.getIntegration(resource.getPath(), method.getHttpMethod());
 
-        return list;
-    }
-
-    private Map<String, String> jsonObjectToHashMapString (JSONObject json) {
-        if (json == null) {
-          return null;
+        if (!integ.isPresent()) {
+            LOG.info(format("Skipping integration for method %s of %s: no integration in config", method.getHttpMethod(), resource.getPath()));
+            return;
         }
 
-        final Map<String, String> map = new HashMap<>();
-        final Iterator<String> keysIterator = json.keys();
+        LOG.info("Creating integration with type " + integ.get().getType());
 
-        while (keysIterator.hasNext()) {
-            String key = keysIterator.next();
+        Integration integration = method.putIntegration(integ.get().toInput());
 
-            try {
-                map.put(key, json.getString(key));
-            } catch (JSONException e) {}
+        for (RamlConfig.ResponseConfig response : integ.get().getResponses()) {
+            integration.putIntegrationResponse(response.toInput(), response.getStatusCode());
         }
-
-        return map;
     }
 
-    private void cleanupMethodModels(Method method, Map<String, MimeType> body) {
+    private void cleanupMethodModels(Method method, Map<String, MimeType> body, List<PatchOperation> ops) {
         if (method.getRequestModels() != null) {
             for (Map.Entry<String, String> entry : method.getRequestModels().entrySet()) {
                 if (!body.containsKey(entry.getKey()) || body.get(entry.getKey()).getSchema() == null) {
                     LOG.info(format("Removing model %s from method %s", entry.getKey(), method.getHttpMethod()));
 
-                    method.updateMethod(createPatchDocument(createRemoveOperation("/requestModels/" + escapeOperationString(entry.getKey()))));
+                    ops.add(createRemoveOperation("/requestModels/" + escapeOperationString(entry.getKey())));
                 }
             }
         }
     }
 
-    private void cleanupMethod(Method method, String type, Set<String> parameterSet) {
+    private void cleanupMethod(Method method, String type, Set<String> parameterSet, List<PatchOperation> ops) {
         if (method.getRequestParameters() != null) {
             method.getRequestParameters().keySet().forEach(key -> {
                 final String[] parts = key.split("\\.");
@@ -402,19 +469,15 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
                 final String paramName = parts[3];
 
                 if (paramType.equals(type) && !parameterSet.contains(paramName)) {
-                    method.updateMethod(createPatchDocument(createRemoveOperation("/requestParameters/" + key)));
+                    ops.add(createRemoveOperation("/requestParameters/" + key));
                 }
             });
         }
     }
 
-    private String generateModelName() {
-        return "model" + UUID.randomUUID().toString().substring(0, 8);
-    }
-
-    private void createMethodResponses(RestApi api, Method method, Map<String, Response> responses, boolean update) {
+    private void createMethodResponses(RamlImportContext ctx, RestApi api, Method method, Map<String, Response> responses, boolean update) {
         for (Map.Entry<String, Response> entry : responses.entrySet()) {
-            createMethodResponse(api, method, entry.getKey(), entry.getValue(), update);
+            createMethodResponse(ctx, api, method, entry.getKey(), entry.getValue(), update);
         }
 
         if (update) {
@@ -430,7 +493,7 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         });
     }
 
-    private void createMethodResponse(RestApi api, Method method, String statusCode, Response response, boolean update) {
+    private void createMethodResponse(RamlImportContext ctx, RestApi api, Method method, String statusCode, Response response, boolean update) {
         // TODO: Improve implementation by patching.
         if (update && method.getMethodResponses().containsKey(statusCode)) {
             final MethodResponse methodResponse = method.getMethodResponses().get(statusCode);
@@ -450,7 +513,7 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         if (response.hasBody()) {
             for (Map.Entry<String, MimeType> entry : response.getBody().entrySet()) {
                 final String mime = entry.getKey();
-                final String modelName = createModel(api, mime, entry.getValue());
+                final String modelName = createModel(ctx, api, mime, entry.getValue());
 
                 if (modelName != null) {
                     input.getResponseModels().put(mime, modelName);
@@ -462,7 +525,7 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
     }
 
     @Nullable
-    private String createModel(RestApi api, String mime, MimeType mimeType) {
+    private String createModel(RamlImportContext ctx, RestApi api, String mime, MimeType mimeType) {
         final String schema = mimeType.getSchema();
 
         if (schema != null) {
@@ -470,12 +533,17 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
                 return schema;
             }
 
-            final String modelName = generateModelName();
+            // the model is named after the schema's content, so an update finds the model a previous import created
+            return ctx.getSchemas().getModelName(schema, canonical -> {
+                final String modelName = canonical.getModelName();
 
-            models.add(modelName);
-            createModel(api, modelName, null, schema, mime);
+                ctx.getProcessedModels().add(modelName);
+                if (!ctx.getSchemas().exists(modelName)) {
+                    createModel(ctx, api, modelName, null, canonical.getContent(), canonical.getContentType().orElse(mime));
+                }
 
-            return modelName;
+                return modelName;
+            });
         }
 
         return null;
@@ -485,8 +553,29 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         return area + "." + part + "." + type + "." + name;
     }
 
-    private void updateMethod(RestApi api, Method method, String type, String name, boolean required) {
-        String expression = getExpression("method", "request", type, name);
+    /*
+     * Get the request parameters of a method, keyed by their expression. Path parameters include those inherited from
+     * the ancestors of the resource
+     */
+    private Map<String, Boolean> getRequestParameters(Map<String, UriParameter> requestParameters, Action action) {
+        final Map<String, Boolean> parameters = new HashMap<>();
+
+        for (Map.Entry<String, UriParameter> entry : requestParameters.entrySet()) {
+            parameters.put(getExpression("method", "request", "path", entry.getKey()), entry.getValue().isRequired());
+        }
+
+        for (Map.Entry<String, Header> entry : action.getHeaders().entrySet()) {
+            parameters.put(getExpression("method", "request", "header", entry.getKey()), entry.getValue().isRequired());
+        }
+
+        for (Map.Entry<String, QueryParameter> entry : action.getQueryParameters().entrySet()) {
+            parameters.put(getExpression("method", "request", "querystring", entry.getKey()), entry.getValue().isRequired());
+        }
+
+        return parameters;
+    }
+
+    private void updateMethod(RestApi api, Method method, String expression, boolean required, List<PatchOperation> ops) {
         Map<String, Boolean> requestParameters = method.getRequestParameters();
         Boolean requestParameter = requestParameters == null ? null : requestParameters.get(expression);
 
@@ -497,27 +586,7 @@ public class ApiGatewaySdkRamlApiImporter extends ApiGatewaySdkApiImporter imple
         LOG.info(format("Creating method parameter for api %s and method %s with name %s",
                         api.getId(), method.getHttpMethod(), expression));
 
-        method.updateMethod(createPatchDocument(createAddOperation("/requestParameters/" + expression, getStringValue(required))));
-    }
-
-    private String getAuthorizationTypeFromConfig(Resource resource, String method, JSONObject config) {
-        if (config == null) {
-            return "NONE";
-        }
-
-        try {
-            return config.getJSONObject(resource.getPath())
-                    .getJSONObject(method.toLowerCase())
-                    .getJSONObject("auth")
-                    .getString("type")
-                    .toUpperCase();
-        } catch (JSONException exception) {
-            return "NONE";
-        }
-    }
-
-    private String escapeOperationString(String value) {
-        return value.replaceAll("~", "~0").replaceAll("/", "~1");
+        ops.add(createAddOperation("/requestParameters/" + expression, getStringValue(required)));
     }
 
 
@@ -14,9 +14,17 @@
  */
 package com.amazonaws.service.apigateway.importer.impl.sdk;
 
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
 import com.amazonaws.service.apigateway.importer.SwaggerApiImporter;
+import com.amazonaws.service.apigateway.importer.impl.DefinitionCache;
 import com.amazonaws.service.apigateway.importer.impl.SchemaTransformer;
+import com.amazonaws.service.apigateway.importer.impl.SwaggerDiff;
 import com.amazonaws.services.apigateway.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import io.swagger.models.Operation;
@@ -36,8 +44,11 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createAddOperation;
+import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createMapOperations;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createPatchDocument;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createRemoveOperation;
 import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createReplaceOperation;
@@ -50,47 +61,664 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
     private static final String DEFAULT_PRODUCES_CONTENT_TYPE = "application/json";
     private static final String EXTENSION_AUTH = "x-amazon-apigateway-auth";
     private static final String EXTENSION_INTEGRATION = "x-amazon-apigateway-integration";
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<Map<String, Object>>() {};
+    private static final TypeReference<Map<String, Map<String, Object>>> JSON_OBJECTS = new TypeReference<Map<String, Map<String, Object>>>() {};
+    private static final TypeReference<Map<String, String>> STRING_MAP = new TypeReference<Map<String, String>>() {};
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<List<String>>() {};
 
-    @Inject
-    private Swagger swagger;
+    // optional local cache of flattened model schemas
+    @Inject(optional = true)
+    private DefinitionCache definitionCache;
 
     @Override
     public String createApi(Swagger swagger, String name) {
-        this.swagger = swagger;
-        this.processedModels.clear();
+        return createApi(swagger, name, ImportJournal.inMemory());
+    }
+
+    @Override
+    public String createApi(Swagger swagger, String name, ImportJournal journal) {
+        return createApi(swagger, name, journal, ImportScope.all());
+    }
+
+    @Override
+    public String createApi(Swagger swagger, String name, ImportJournal journal, ImportScope scope) {
+        final SwaggerImportContext ctx = createContext(swagger, journal, scope);
+        validate(ctx, true);
 
         final RestApi api = createApi(getApiName(swagger, name), swagger.getInfo().getDescription());
+        journal.recordApi(api.getId());
 
         LOG.info("Created API "+api.getId());
         
         try {
-            final Resource rootResource = getRootResource(api).get();
-            deleteDefaultModels(api);
-            createModels(api, swagger.getDefinitions(), swagger.getProduces());
-            createResources(api, rootResource, swagger.getBasePath(), swagger.getProduces(), swagger.getPaths(), true);
+            populateApi(ctx, api);
         } catch (Throwable t) {
-            LOG.error("Error creating API, rolling back", t);
-            rollback(api);
+            LOG.error("Error creating API " + api.getId(), t);
             throw t;
         }
         return api.getId();
     }
 
+    @Override
+    public String resumeApi(Swagger swagger, ImportJournal journal) {
+        return resumeApi(swagger, journal, ImportScope.all());
+    }
+
+    @Override
+    public String resumeApi(Swagger swagger, ImportJournal journal, ImportScope scope) {
+        final SwaggerImportContext ctx = createContext(swagger, journal, scope);
+        validate(ctx, false);
+
+        final RestApi api = getJournaledApi(journal);
+
+        LOG.info("Resuming import of API " + api.getId());
+
+        populateApi(ctx, api);
+
+        return api.getId();
+    }
+
+    private void populateApi(SwaggerImportContext ctx, RestApi api) {
+        final Swagger swagger = ctx.getSwagger();
+        final List<Resource> resources = buildResourceList(api);
+        final Resource rootResource = getRootResource(resources).get();
+        deleteDefaultModelsOnce(ctx, api);
+        createModels(ctx, api, swagger.getDefinitions(), swagger.getProduces());
+        createResources(ctx, api, rootResource, swagger.getBasePath(), swagger.getProduces(), swagger.getPaths(), true, resources);
+    }
+
     @Override
     public void updateApi(String apiId, Swagger swagger) {
-        this.swagger = swagger;
-        this.processedModels.clear();
+        updateApi(apiId, swagger, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, Swagger definition, ImportScope scope) {
+        final SwaggerImportContext ctx = createContext(definition, ImportJournal.inMemory(), scope);
+        validate(ctx, false);
 
+        final Swagger swagger = ctx.getSwagger();
         RestApi api = getApi(apiId);
-        Optional<Resource> rootResource = getRootResource(api);
 
-        updateModels(api, swagger.getDefinitions(), swagger.getProduces());
-        updateResources(api, rootResource.get(), swagger.getBasePath(), swagger.getPaths(), swagger.getProduces());
-        updateMethods(api, swagger.getBasePath(), swagger.getPaths(), swagger.getProduces());
+        final Optional<ApiSnapshot> snapshot = loadSnapshot(api);
 
-        cleanupMethods(api, swagger.getBasePath(), swagger.getPaths());
-        cleanupResources(api, swagger.getBasePath(), swagger.getPaths());
-        cleanupModels(api, this.processedModels);
+        if (snapshot.isPresent()) {
+            LOG.info("Planning update of API " + apiId + " from local snapshot");
+            saveSnapshot(updateApiFromSnapshot(ctx, api, snapshot.get(), Collections.emptySet()));
+            return;
+        }
+
+        // listed once, then kept up to date as resources are created and deleted
+        final List<Resource> resources = listResources(ctx, api);
+        Optional<Resource> rootResource = getRootResource(resources);
+
+        updateModels(ctx, api, swagger.getDefinitions(), swagger.getProduces());
+        updateResources(ctx, api, rootResource.get(), swagger.getBasePath(), swagger.getPaths(), swagger.getProduces(), resources);
+        updateMethods(ctx, api, swagger.getBasePath(), swagger.getPaths(), swagger.getProduces(), resources);
+
+        cleanupResources(ctx, api, swagger.getBasePath(), swagger.getPaths(), resources);
+        if (!scope.isPartial()) {
+            cleanupModels(api, ctx.getProcessedModels());
+        }
+
+        if (snapshotStore != null) {
+            saveSnapshot(buildSnapshot(ctx, api, resources));
+        }
+    }
+
+    /*
+     * List the resources an update works on. An update that can't delete anything, such as one limited to tags, only
+     * needs the resources of its definition and their ancestors, so the listing stops once they are all listed. The
+     * snapshot and the cleanup of other scopes need every resource of the api
+     */
+    private List<Resource> listResources(SwaggerImportContext ctx, RestApi api) {
+        if (!ctx.getScope().hasTags() || snapshotStore != null) {
+            return buildResourceList(api);
+        }
+
+        final Set<String> paths = new HashSet<>();
+        paths.add("/");
+        for (String path : ctx.getSwagger().getPaths().keySet()) {
+            for (String p = buildResourcePath(ctx.getSwagger().getBasePath(), path); p != null; p = getParentPath(p)) {
+                paths.add(p);
+            }
+        }
+
+        return buildResourceList(api, listed -> listed.stream().map(Resource::getPath).collect(Collectors.toSet()).containsAll(paths));
+    }
+
+    @Override
+    public void updateApi(String apiId, Swagger swagger, Swagger previousSwagger) {
+        updateApi(apiId, swagger, previousSwagger, ImportScope.all());
+    }
+
+    @Override
+    public void updateApi(String apiId, Swagger swagger, Swagger previousSwagger, ImportScope scope) {
+        final SwaggerImportContext ctx = createContext(swagger, ImportJournal.inMemory(), scope);
+        validate(ctx, false);
+
+        final RestApi api = getApi(apiId);
+        final SwaggerDiff diff = new SwaggerDiff(previousSwagger, swagger);
+
+        LOG.info(format("Updating API %s from the previous definition, %d of its models are affected by the changes",
+                        apiId, diff.getAffectedDefinitions().size()));
+
+        final Set<String> unchangedModels = new HashSet<>();
+        if (ctx.getSwagger().getDefinitions() != null) {
+            unchangedModels.addAll(ctx.getSwagger().getDefinitions().keySet());
+            unchangedModels.removeAll(diff.getAffectedDefinitions());
+        }
+
+        final ApiSnapshot previous = buildSnapshot(api, previousSwagger, diff, loadSnapshot(api));
+
+        saveSnapshot(updateApiFromSnapshot(ctx, api, previous, unchangedModels));
+    }
+
+    @Override
+    public void deploy(String apiId, String deploymentStage, Swagger swagger, boolean force) {
+        final String fingerprint;
+        try {
+            fingerprint = ApiSnapshot.fingerprint(Json.mapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                                                          .writeValueAsString(swagger));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not process Swagger definition", e);
+        }
+
+        deploy(apiId, deploymentStage, fingerprint, force);
+    }
+
+    /*
+     * Limit the definition to the scope of the import
+     */
+    private SwaggerImportContext createContext(Swagger swagger, ImportJournal journal, ImportScope scope) {
+        if (scope.isPartial()) {
+            LOG.info("Limiting the import to " + scope);
+        }
+
+        return new SwaggerImportContext(scope.apply(swagger), journal, scope);
+    }
+
+    /*
+     * Check the whole definition before the first call to API Gateway, so an invalid definition fails with all of its
+     * errors instead of halfway through the import. The schemas generated here are kept in the context for the import
+     */
+    private void validate(SwaggerImportContext ctx, boolean create) {
+        final List<String> errors = getValidationErrors(ctx, create);
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(format("Swagger definition has %d error(s):%n  %s",
+                                                      errors.size(), String.join(format("%n  "), errors)));
+        }
+
+        markStartup("validate definition");
+    }
+
+    /**
+     * @param create whether the definition creates an API, which is named and described from its info object
+     */
+    List<String> getValidationErrors(SwaggerImportContext ctx, boolean create) {
+        final Swagger swagger = ctx.getSwagger();
+        final List<String> errors = new ArrayList<>();
+
+        if (create && swagger.getInfo() == null) {
+            errors.add("Missing info object");
+        }
+
+        if (swagger.getDefinitions() != null) {
+            errors.addAll(swagger.getDefinitions().entrySet().stream()
+                                  .flatMap(e -> validateSchema("Model '" + e.getKey() + "'",
+                                                               () -> generateSchema(ctx, e.getValue(), e.getKey())).stream())
+                                  .collect(Collectors.toList()));
+        }
+
+        if (swagger.getPaths() != null) {
+            errors.addAll(swagger.getPaths().entrySet().stream()
+                                  .flatMap(p -> getOperations(p.getValue()).entrySet().stream()
+                                          .flatMap(op -> validateOperation(ctx, op.getKey().toUpperCase() + " " + p.getKey(),
+                                                                           op.getValue()).stream()))
+                                  .collect(Collectors.toList()));
+        }
+
+        return errors;
+    }
+
+    private List<String> validateOperation(SwaggerImportContext ctx, String name, Operation op) {
+        final List<String> errors = new ArrayList<>();
+        final Map<String, io.swagger.models.Model> definitions = ctx.getSwagger().getDefinitions();
+
+        for (Parameter p : op.getParameters()) {
+            if (!p.getIn().equals("body")) {
+                continue;
+            }
+
+            final BodyParameter bodyParam = (BodyParameter) p;
+            final Optional<String> inputModel = getInputModel(bodyParam);
+
+            if (inputModel.isPresent()) {
+                if (definitions == null || !definitions.containsKey(inputModel.get())) {
+                    errors.add(format("%s: body parameter '%s' references undefined model '%s'", name, p.getName(), inputModel.get()));
+                }
+            } else if (bodyParam.getSchema() == null) {
+                errors.add(format("%s: body parameter '%s' must have a schema defined", name, p.getName()));
+            } else {
+                errors.addAll(validateSchema(name + ": body parameter '" + p.getName() + "'",
+                                             () -> generateSchema(ctx, bodyParam.getSchema(), name)));
+            }
+        }
+
+        if (op.getResponses() != null) {
+            op.getResponses().forEach((status, response) -> {
+                if (status.equals("default") || response.getSchema() == null) {
+                    return;
+                }
+
+                if (response.getSchema().getType().equals("ref")) {
+                    final String modelName = ((RefProperty) response.getSchema()).getSimpleRef();
+
+                    if (definitions == null || !definitions.containsKey(modelName)) {
+                        errors.add(format("%s: response %s references undefined model '%s'", name, status, modelName));
+                    }
+                } else {
+                    errors.addAll(validateSchema(name + ": response " + status, () -> generateSchema(ctx, response.getSchema(), name)));
+                }
+            });
+        }
+
+        errors.addAll(validateExtensions(name, op.getVendorExtensions()));
+
+        return errors;
+    }
+
+    private List<String> validateExtensions(String name, Map<String, Object> vendorExtensions) {
+        final List<String> errors = new ArrayList<>();
+
+        if (vendorExtensions == null) {
+            return errors;
+        }
+
+        if (vendorExtensions.containsKey(EXTENSION_AUTH)) {
+            final Map<String, Object> auth = Json.mapper().convertValue(vendorExtensions.get(EXTENSION_AUTH), JSON_OBJECT);
+
+            if (auth == null || !(auth.get("type") instanceof String)) {
+                errors.add(format("%s: %s must define a type", name, EXTENSION_AUTH));
+            }
+        }
+
+        if (!vendorExtensions.containsKey(EXTENSION_INTEGRATION)) {
+            return errors;
+        }
+
+        final Map<String, Object> integ = Json.mapper().convertValue(vendorExtensions.get(EXTENSION_INTEGRATION), JSON_OBJECT);
+
+        if (integ == null) {
+            errors.add(format("%s: %s must be an object", name, EXTENSION_INTEGRATION));
+            return errors;
+        }
+
+        final Object type = integ.get("type");
+        if (!(type instanceof String) || Arrays.stream(IntegrationType.values()).noneMatch(t -> t.name().equalsIgnoreCase((String) type))) {
+            errors.add(format("%s: unknown integration type '%s', expected one of %s", name, type, Arrays.toString(IntegrationType.values())));
+        }
+
+        final Object responses = integ.get("responses");
+        if (!(responses instanceof Map)) {
+            errors.add(format("%s: integration must define responses", name));
+            return errors;
+        }
+
+        final Map<String, Object> integResponses = Json.mapper().convertValue(responses, JSON_OBJECT);
+        integResponses.forEach((pattern, response) -> {
+            if (!(response instanceof Map) || !(((Map<?, ?>) response).get("statusCode") instanceof String)) {
+                errors.add(format("%s: integration response '%s' must define a statusCode", name, pattern));
+            }
+        });
+
+        return errors;
+    }
+
+    private List<String> validateSchema(String name, Runnable generateSchema) {
+        try {
+            generateSchema.run();
+            return emptyList();
+        } catch (RuntimeException e) {
+            final String cause = e.getCause() != null ? ": " + e.getCause().getMessage() : "";
+            return Collections.singletonList(format("%s: %s%s", name, e.getMessage(), cause));
+        }
+    }
+
+    /*
+     * Apply the definition using the snapshot of the last update in place of the live resource and model listings.
+     * Only methods and models whose fingerprint changed since the snapshot are fetched and written. Models known to be
+     * unchanged are not regenerated
+     */
+    private ApiSnapshot updateApiFromSnapshot(SwaggerImportContext ctx, RestApi api, ApiSnapshot previous, Set<String> unchangedModels) {
+        final ApiSnapshot applied = new ApiSnapshot(api.getId());
+        final Map<String, Resource> fetched = new HashMap<>();
+
+        final Map<String, io.swagger.models.Model> definitions = ctx.getSwagger().getDefinitions();
+        if (definitions != null) {
+            for (Map.Entry<String, io.swagger.models.Model> entry : definitions.entrySet()) {
+                final String modelName = entry.getKey();
+
+                // without a fingerprint the model can't be known to match, so it is generated and compared
+                if (unchangedModels.contains(modelName) && previous.getModels().get(modelName) != null) {
+                    ctx.getProcessedModels().add(modelName);
+                    ctx.getModelFingerprints().put(modelName, previous.getModels().get(modelName));
+                    continue;
+                }
+
+                final String schema = generateSchema(ctx, entry.getValue(), modelName);
+                final String fingerprint = ApiSnapshot.fingerprint(schema);
+
+                if (fingerprint.equals(previous.getModels().get(modelName))) {
+                    ctx.getProcessedModels().add(modelName);
+                } else if (previous.getModels().containsKey(modelName)) {
+                    LOG.info(format("Updating model for api id %s and model name %s", api.getId(), modelName));
+                    updateModel(ctx, api, modelName, schema);
+                } else {
+                    LOG.info(format("Creating model for api id %s with name %s", api.getId(), modelName));
+                    createModel(ctx, api, modelName, entry.getValue().getDescription(), schema,
+                                getProducesContentType(ctx.getSwagger().getProduces(), emptyList()));
+                }
+
+                ctx.getModelFingerprints().put(modelName, fingerprint);
+            }
+        }
+
+        final ApiSnapshot.ResourceState root = previous.getResources().get("/");
+        applied.putResource("/", root.getId(), null);
+
+        for (Map.Entry<String, Path> entry : ctx.getSwagger().getPaths().entrySet()) {
+            final String fullPath = buildResourcePath(ctx.getSwagger().getBasePath(), entry.getKey());
+            final ApiSnapshot.ResourceState state = createResourcePath(api, fullPath, previous, applied, fetched);
+            final ApiSnapshot.ResourceState previousState = previous.getResources().get(fullPath);
+
+            for (Map.Entry<String, Operation> opEntry : getOperations(entry.getValue()).entrySet()) {
+                final String httpMethod = opEntry.getKey().toUpperCase();
+                final Operation op = opEntry.getValue();
+                final String modelContentType = getProducesContentType(ctx.getSwagger().getProduces(), op.getProduces());
+                final String fingerprint = getMethodFingerprint(ctx.getSwagger(), op, modelContentType);
+                final String previousFingerprint = previousState == null ? null : previousState.getMethods().get(httpMethod);
+                final Optional<Set<String>> referencedModels = getReferencedModels(op);
+
+                if (fingerprint.equals(previousFingerprint) && referencedModels.isPresent()) {
+                    ctx.getProcessedModels().addAll(referencedModels.get());
+                } else {
+                    final Resource resource = fetched.computeIfAbsent(state.getId(), api::getResourceById);
+
+                    if (previousFingerprint != null) {
+                        updateMethod(ctx, api, resource, httpMethod, op, modelContentType);
+                    } else {
+                        createMethod(ctx, api, resource, httpMethod, op, modelContentType);
+                    }
+                }
+
+                state.getMethods().put(httpMethod, fingerprint);
+            }
+        }
+
+        cleanupFromSnapshot(ctx, api, previous, applied, fetched);
+
+        ctx.getProcessedModels().forEach(m -> applied.getModels().put(m, ctx.getModelFingerprints().get(m)));
+        if (ctx.getScope().isPartial()) {
+            previous.getModels().forEach(applied.getModels()::putIfAbsent);
+        }
+
+        return applied;
+    }
+
+    /*
+     * Resolve the resource for a path from the snapshots, creating any resources missing from the api
+     */
+    private ApiSnapshot.ResourceState createResourcePath(RestApi api, String fullPath, ApiSnapshot previous,
+                                                         ApiSnapshot applied, Map<String, Resource> fetched) {
+        final String[] parts = fullPath.split("/");
+
+        ApiSnapshot.ResourceState parent = applied.getResources().get("/");
+        String path = "";
+
+        for (int i = 1; i < parts.length; i++) {
+            path = path + "/" + parts[i];
+
+            ApiSnapshot.ResourceState state = applied.getResources().get(path);
+
+            if (state == null && previous.getResources().containsKey(path)) {
+                state = applied.putResource(path, previous.getResources().get(path).getId(), parent.getId());
+            } else if (state == null) {
+                LOG.info("Creating resource '" + parts[i] + "' on " + parent.getId());
+
+                CreateResourceInput input = new CreateResourceInput();
+                input.setPathPart(parts[i]);
+                Resource created = fetched.computeIfAbsent(parent.getId(), api::getResourceById).createResource(input);
+
+                fetched.put(created.getId(), created);
+                state = applied.putResource(path, created.getId(), parent.getId());
+            }
+
+            parent = state;
+        }
+
+        return parent;
+    }
+
+    /*
+     * Delete the methods, resources and models present in the previous snapshot but no longer in the definition. What
+     * is outside of the scope of the import is kept in the applied snapshot as it was
+     */
+    private void cleanupFromSnapshot(SwaggerImportContext ctx, RestApi api, ApiSnapshot previous, ApiSnapshot applied, Map<String, Resource> fetched) {
+        final String basePath = ctx.getSwagger().getBasePath();
+        final Predicate<String> deletable = getDeletableResources(ctx.getScope(), basePath, previous.getResources().keySet());
+
+        final Set<String> appliedIds = new HashSet<>();
+        applied.getResources().values().forEach(r -> appliedIds.add(r.getId()));
+
+        // the deletions are planned first, so that the applied snapshot is only changed on this thread
+        final List<Runnable> deletions = new ArrayList<>();
+
+        // parents come before their children in the snapshot
+        for (Map.Entry<String, ApiSnapshot.ResourceState> entry : previous.getResources().entrySet()) {
+            final String path = entry.getKey();
+            final ApiSnapshot.ResourceState state = entry.getValue();
+            final ApiSnapshot.ResourceState appliedState = applied.getResources().get(path);
+
+            if (appliedState != null) {
+                final List<String> removedMethods = new ArrayList<>();
+
+                for (Map.Entry<String, String> method : state.getMethods().entrySet()) {
+                    final String httpMethod = method.getKey();
+
+                    if (appliedState.getMethods().containsKey(httpMethod)) {
+                        continue;
+                    }
+
+                    if (canDeleteMethods(ctx.getScope(), basePath, path)) {
+                        removedMethods.add(httpMethod);
+                    } else {
+                        appliedState.getMethods().put(httpMethod, method.getValue());
+                    }
+                }
+
+                if (!removedMethods.isEmpty()) {
+                    deletions.add(() -> {
+                        final Resource resource = getFetchedResource(api, state.getId(), fetched);
+                        removedMethods.forEach(httpMethod -> {
+                            LOG.info(format("Removing deleted method %s for resource %s", httpMethod, state.getId()));
+                            resource.getMethodByHttpMethod(httpMethod).deleteMethod();
+                        });
+                    });
+                }
+            } else if (!deletable.test(path)) {
+                applied.putResource(path, state.getId(), state.getParentId()).getMethods().putAll(state.getMethods());
+                appliedIds.add(state.getId());
+            } else if (appliedIds.contains(state.getParentId())) {
+                // deleting the top-most removed resource also deletes its descendants
+                deletions.add(() -> {
+                    LOG.info("Removing deleted resource " + path);
+                    deleteResource(getFetchedResource(api, state.getId(), fetched));
+                });
+            }
+        }
+
+        deleteConcurrently(deletions);
+
+        if (ctx.getScope().isPartial()) {
+            return;
+        }
+
+        // models may still be referenced by the methods deleted above, so they are deleted once those are gone. They
+        // are deleted by name from the snapshot, the models of the api are not listed
+        deleteConcurrently(previous.getModels().keySet().stream()
+                .filter(modelName -> !ctx.getProcessedModels().contains(modelName))
+                .map(modelName -> (Runnable) () -> {
+                    LOG.info("Removing deleted model " + modelName);
+                    try {
+                        api.getModelByName(modelName).deleteModel();
+                    } catch (NotFoundException ignored) {}
+                })
+                .collect(Collectors.toList()));
+    }
+
+    // the fetched resources are only read while deleting concurrently
+    private Resource getFetchedResource(RestApi api, String id, Map<String, Resource> fetched) {
+        final Resource resource = fetched.get(id);
+        return resource != null ? resource : api.getResourceById(id);
+    }
+
+    /*
+     * Build the snapshot of an api that has just been updated from the swagger definition
+     * @param resources the resources of the api as listed before the update, including those created and excluding
+     *                  those deleted by the update. Their methods are as listed
+     */
+    private ApiSnapshot buildSnapshot(SwaggerImportContext ctx, RestApi api, List<Resource> resources) {
+        final ApiSnapshot snapshot = new ApiSnapshot(api.getId());
+        final String basePath = ctx.getSwagger().getBasePath();
+
+        for (Resource r : resources) {
+            final ApiSnapshot.ResourceState state = snapshot.putResource(r.getPath(), r.getId(), r.getParentId());
+
+            // methods outside of the scope of the import have no known fingerprint, those in scope that are not in the
+            // definition have been deleted by the cleanup
+            if (r.getResourceMethods() != null && !canDeleteMethods(ctx.getScope(), basePath, r.getPath())) {
+                r.getResourceMethods().keySet().forEach(m -> state.getMethods().put(m.toUpperCase(), ""));
+            }
+        }
+
+        for (Map.Entry<String, Path> entry : ctx.getSwagger().getPaths().entrySet()) {
+            final ApiSnapshot.ResourceState state = snapshot.getResources().get(buildResourcePath(ctx.getSwagger().getBasePath(), entry.getKey()));
+
+            getOperations(entry.getValue()).forEach((httpMethod, op) -> state.getMethods().put(httpMethod.toUpperCase(),
+                    getMethodFingerprint(ctx.getSwagger(), op, getProducesContentType(ctx.getSwagger().getProduces(), op.getProduces()))));
+        }
+
+        ctx.getProcessedModels().forEach(m -> snapshot.getModels().put(m, ctx.getModelFingerprints().get(m)));
+        if (ctx.getScope().isPartial()) {
+            buildModelList(api).forEach(m -> snapshot.getModels().putIfAbsent(m.getName(), null));
+        }
+
+        return snapshot;
+    }
+
+    /*
+     * Build the snapshot the api would have if it was last updated from the previous definition. Resource ids come from
+     * the local snapshot when there is one, otherwise from a single listing of the live resources. Model fingerprints
+     * also come from the local snapshot, otherwise from the schemas generated for the previous definitions. Methods
+     * whose generated models reference an affected definition get an empty fingerprint so that they are updated
+     */
+    private ApiSnapshot buildSnapshot(RestApi api, Swagger previousSwagger, SwaggerDiff diff, Optional<ApiSnapshot> local) {
+        final ApiSnapshot snapshot = new ApiSnapshot(api.getId());
+
+        if (local.isPresent()) {
+            local.get().getResources().forEach((path, r) -> snapshot.putResource(path, r.getId(), r.getParentId()));
+        } else {
+            for (Resource r : buildResourceList(api)) {
+                snapshot.putResource(r.getPath(), r.getId(), r.getParentId());
+            }
+        }
+
+        final Set<String> models = new HashSet<>();
+        if (previousSwagger.getDefinitions() != null) {
+            models.addAll(previousSwagger.getDefinitions().keySet());
+        }
+
+        for (Map.Entry<String, Path> entry : previousSwagger.getPaths().entrySet()) {
+            final ApiSnapshot.ResourceState state = snapshot.getResources().get(buildResourcePath(previousSwagger.getBasePath(), entry.getKey()));
+
+            for (Map.Entry<String, Operation> opEntry : getOperations(entry.getValue()).entrySet()) {
+                final Operation op = opEntry.getValue();
+
+                if (state != null) {
+                    state.getMethods().put(opEntry.getKey().toUpperCase(), diff.isAffected(op) ? "" :
+                            getMethodFingerprint(previousSwagger, op, getProducesContentType(previousSwagger.getProduces(), op.getProduces())));
+                }
+
+                getReferencedModels(op).ifPresent(models::addAll);
+            }
+        }
+
+        if (local.isPresent()) {
+            models.forEach(m -> snapshot.getModels().put(m, local.get().getModels().get(m)));
+        } else {
+            final SwaggerImportContext previousCtx = new SwaggerImportContext(previousSwagger, ImportJournal.inMemory());
+            final Map<String, io.swagger.models.Model> definitions = previousSwagger.getDefinitions();
+
+            // generated models have no previous definition, their methods decide whether they are written
+            models.forEach(m -> snapshot.getModels().put(m, definitions != null && definitions.containsKey(m)
+                    ? ApiSnapshot.fingerprint(generateSchema(previousCtx, definitions.get(m), m)) : null));
+        }
+
+        return snapshot;
+    }
+
+    private String getMethodFingerprint(Swagger swagger, Operation op, String modelContentType) {
+        try {
+            return ApiSnapshot.fingerprint(Json.mapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS).writeValueAsString(op),
+                                           modelContentType, getStringValue(isApiKeyRequired(swagger, op)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not process operation", e);
+        }
+    }
+
+    /*
+     * Get the names of the models a method references. Empty if any of them is generated with a random name, in which
+     * case the method can't be skipped without losing track of its models
+     */
+    private Optional<Set<String>> getReferencedModels(Operation op) {
+        final Set<String> models = new HashSet<>();
+
+        for (Parameter p : op.getParameters()) {
+            if (p.getIn().equals("body")) {
+                BodyParameter bodyParam = (BodyParameter) p;
+                Optional<String> inputModel = getInputModel(bodyParam);
+
+                if (inputModel.isPresent()) {
+                    models.add(inputModel.get());
+                } else if (StringUtils.isBlank(bodyParam.getDescription())) {
+                    return Optional.empty();
+                } else {
+                    models.add(generateModelName(bodyParam));
+                }
+            }
+        }
+
+        if (op.getResponses() != null) {
+            for (Map.Entry<String, Response> e : op.getResponses().entrySet()) {
+                final Response response = e.getValue();
+
+                if (e.getKey().equals("default") || response.getSchema() == null) {
+                    continue;
+                }
+
+                if (response.getSchema().getType().equals("ref")) {
+                    models.add(((RefProperty) response.getSchema()).getSimpleRef());
+                } else if (StringUtils.isBlank(response.getDescription())) {
+                    return Optional.empty();
+                } else {
+                    models.add(generateModelName(response));
+                }
+            }
+        }
+
+        return Optional.of(models);
     }
 
     private String getApiName(Swagger swagger, String fileName) {
@@ -98,32 +726,53 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return StringUtils.isNotBlank(title) ? title : fileName;
     }
 
-    private void createModels(RestApi api, Map<String, io.swagger.models.Model> definitions, List<String> produces) {
+    private void createModels(SwaggerImportContext ctx, RestApi api, Map<String, io.swagger.models.Model> definitions, List<String> produces) {
         if (definitions == null) {
             return;
         }
 
+        // models left behind by a previous attempt are verified against the live API
+        final Set<String> existingModels = new HashSet<>();
+        if (ctx.getJournal().isResumed()) {
+            buildModelList(api).forEach(m -> existingModels.add(m.getName()));
+        }
+
         for (Map.Entry<String, io.swagger.models.Model> entry : definitions.entrySet()) {
             final String modelName = entry.getKey();
             final io.swagger.models.Model model = entry.getValue();
 
-            createModel(api, modelName, model, definitions, getProducesContentType(produces, emptyList()));
+            if (existingModels.contains(modelName)) {
+                if (ctx.getJournal().isCompleted(ImportJournal.MODEL, modelName)) {
+                    LOG.info("Model " + modelName + " was imported by a previous attempt, skipping");
+                    ctx.getProcessedModels().add(modelName);
+                } else {
+                    updateModel(ctx, api, modelName, model);
+                }
+            } else {
+                createModel(ctx, api, modelName, model, getProducesContentType(produces, emptyList()));
+            }
+
+            ctx.getJournal().recordCompleted(ImportJournal.MODEL, modelName);
         }
     }
 
-    private void createModel(RestApi api, String modelName, io.swagger.models.Model model, Map<String, io.swagger.models.Model> definitions, String modelContentType) {
+    private void createModel(SwaggerImportContext ctx, RestApi api, String modelName, io.swagger.models.Model model, String modelContentType) {
         LOG.info(format("Creating model for api id %s with name %s", api.getId(), modelName));
 
-        createModel(api, modelName, model.getDescription(), generateSchema(model, modelName, definitions), modelContentType);
+        final String schema = generateSchema(ctx, model, modelName);
+        ctx.getModelFingerprints().put(modelName, ApiSnapshot.fingerprint(schema));
+
+        createModel(ctx, api, modelName, model.getDescription(), schema, modelContentType);
     }
 
-    private void createModel(RestApi api, String modelName, Property model, String modelContentType) {
+    private void createModel(SwaggerImportContext ctx, RestApi api, String modelName, Property model, String modelContentType) {
         LOG.info(format("Creating model for api id %s with name %s", api.getId(), modelName));
 
-        createModel(api, modelName, model.getDescription(), generateSchema(model, modelName, swagger.getDefinitions()), modelContentType);
+        createModel(ctx, api, modelName, model.getDescription(), generateSchema(ctx, model, modelName), modelContentType);
     }
 
-    private void updateMethods(RestApi api, String basePath, Map<String, Path> paths, List<String> apiProduces) {
+    private void updateMethods(SwaggerImportContext ctx, RestApi api, String basePath, Map<String, Path> paths, List<String> apiProduces,
+                               List<Resource> resources) {
         for (Map.Entry<String, Path> entry : paths.entrySet()) {
             final String fullPath = buildResourcePath(basePath, entry.getKey());
 
@@ -136,24 +785,23 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
                 final Operation op = opEntry.getValue();
 
                 // resolve the resource based on path - the resource is guaranteed to exist by this point
-                final Resource resource = getResource(api, fullPath).get();
+                final Resource resource = resources.stream().filter(r -> r.getPath().equals(fullPath)).findFirst().get();
 
                 String modelContentType = getProducesContentType(apiProduces, op.getProduces());
 
                 if (methodExists(resource, httpMethod)) {
-                    updateMethod(api, resource, httpMethod, op, modelContentType);
+                    updateMethod(ctx, api, resource, httpMethod, op, modelContentType);
                 } else {
-                    createMethod(api, resource, httpMethod, op, modelContentType);
+                    createMethod(ctx, api, resource, httpMethod, op, modelContentType);
                 }
             }
         }
     }
 
-    private void createResources(RestApi api, Resource rootResource, String basePath, List<String> apiProduces, Map<String, Path> paths, boolean createMethods) {
+    private void createResources(SwaggerImportContext ctx, RestApi api, Resource rootResource, String basePath, List<String> apiProduces,
+                                 Map<String, Path> paths, boolean createMethods, List<Resource> resources) {
         //build path tree
 
-        List<Resource> resources = buildResourceList(api);
-
         for (Map.Entry<String, Path> entry : paths.entrySet()) {
 
             // create the resource tree
@@ -163,23 +811,34 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
             final String[] parts = fullPath.split("/");
 
             for (int i = 1; i < parts.length; i++) { // exclude root resource as this will be created when the api is created
-                parentResource = createResource(api, parentResource.getId(), parts[i], resources);
+                parentResource = createResource(api, parentResource, parts[i], resources);
             }
 
             if (createMethods) {
                 // create methods on the leaf resource for each path
-                createMethods(api, parentResource, entry.getValue(), apiProduces);
+                createMethods(ctx, api, parentResource, entry.getValue(), apiProduces);
             }
         }
     }
 
-    private void createMethods(final RestApi api, final Resource resource, Path path, List<String> apiProduces) {
+    private void createMethods(SwaggerImportContext ctx, final RestApi api, final Resource resource, Path path, List<String> apiProduces) {
         final Map<String, Operation> ops = getOperations(path);
 
         ops.entrySet().forEach(x -> {
-            createMethod(api, resource, x.getKey(), x.getValue(),
-                    getProducesContentType(apiProduces, x.getValue().getProduces()));
-            LOG.info(format("Creating method for api id %s and resource id %s with method %s", api.getId(), resource.getId(), x.getKey()));
+            final String journalKey = resource.getPath() + " " + x.getKey().toUpperCase();
+            final String modelContentType = getProducesContentType(apiProduces, x.getValue().getProduces());
+
+            if (!ctx.getJournal().isResumed() || !methodExists(resource, x.getKey())) {
+                createMethod(ctx, api, resource, x.getKey(), x.getValue(), modelContentType);
+                LOG.info(format("Creating method for api id %s and resource id %s with method %s", api.getId(), resource.getId(), x.getKey()));
+            } else if (ctx.getJournal().isCompleted(ImportJournal.METHOD, journalKey)) {
+                LOG.info(format("Method %s was imported by a previous attempt, skipping", journalKey));
+            } else {
+                // partially created by a previous attempt
+                updateMethod(ctx, api, resource, x.getKey(), x.getValue(), modelContentType);
+            }
+
+            ctx.getJournal().recordCompleted(ImportJournal.METHOD, journalKey);
         });
     }
 
@@ -202,12 +861,12 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         }
     }
 
-    public void createMethod(RestApi api, Resource resource, String httpMethod,
+    public void createMethod(SwaggerImportContext ctx, RestApi api, Resource resource, String httpMethod,
                              Operation op, String modelContentType) {
         PutMethodInput input = new PutMethodInput();
 
         input.setAuthorizationType(getAuthorizationType(op));
-        input.setApiKeyRequired(isApiKeyRequired(op));
+        input.setApiKeyRequired(isApiKeyRequired(ctx.getSwagger(), op));
 
         // set input model if present in body
         op.getParameters().stream().filter(p -> p.getIn().equals("body")).forEach(p -> {
@@ -217,7 +876,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
             input.setRequestModels(new HashMap<>());
             // model already imported
             if (inputModel.isPresent()) {
-                this.processedModels.add(inputModel.get());
+                ctx.getProcessedModels().add(inputModel.get());
                 LOG.info("Found input model reference " + inputModel.get());
                 input.getRequestModels().put(modelContentType, inputModel.get());
             } else {
@@ -229,7 +888,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
                     throw new IllegalArgumentException("Body parameter '" + bodyParam.getName() + "' must have a schema defined");
                 }
 
-                createModel(api, modelName, bodyParam.getSchema(), swagger.getDefinitions(), modelContentType);
+                createModel(ctx, api, modelName, bodyParam.getSchema(), modelContentType);
                 input.getRequestModels().put(modelContentType, modelName);
             }
         });
@@ -237,7 +896,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         // create method
         Method method = resource.putMethod(input, httpMethod.toUpperCase());
 
-        createMethodResponses(api, method, modelContentType, op.getResponses());
+        createMethodResponses(ctx, api, method, modelContentType, op.getResponses());
         createMethodParameters(api, method, op.getParameters());
         createIntegration(method, op.getVendorExtensions());
     }
@@ -247,8 +906,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
             return;
         }
 
-        Map<String, HashMap> integ = Json.mapper().convertValue(
-                vendorExtensions.get(EXTENSION_INTEGRATION), Map.class );
+        final Map<String, Object> integ = Json.mapper().convertValue(vendorExtensions.get(EXTENSION_INTEGRATION), JSON_OBJECT);
 
         IntegrationType type = IntegrationType.valueOf(getStringValue(integ.get("type")).toUpperCase());
 
@@ -259,29 +917,130 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
                 .withUri(getStringValue(integ.get("uri")))
                 .withCredentials(getStringValue(integ.get("credentials")))
                 .withHttpMethod((getStringValue(integ.get("httpMethod"))))
-                .withRequestParameters(integ.get("requestParameters"))
-                .withRequestTemplates(integ.get("requestTemplates"))
+                .withRequestParameters(getStringMap(integ.get("requestParameters")))
+                .withRequestTemplates(getStringMap(integ.get("requestTemplates")))
                 .withCacheNamespace(getStringValue(integ.get("cacheNamespace")))
-                .withCacheKeyParameters((List<String>) integ.get("cacheKeyParameters"));
+                .withCacheKeyParameters(getStringList(integ.get("cacheKeyParameters")));
 
         Integration integration = method.putIntegration(input);
 
         createIntegrationResponses(integration, integ);
     }
 
-    private void createIntegrationResponses(Integration integration, Map<String, HashMap> integ) {
-        // todo: avoid unchecked casts
-        HashMap<String, HashMap> responses = (HashMap<String, HashMap>) integ.get("responses");
+    /*
+     * Patch the templates and parameters of the existing integration when its target is unchanged, otherwise put the
+     * whole integration. Large mapping templates are only sent when they change
+     */
+    void updateIntegration(Method method, Map<String, Object> vendorExtensions) {
+        final Integration existing = getIntegration(method);
+
+        if (existing == null || !vendorExtensions.containsKey(EXTENSION_INTEGRATION)) {
+            createIntegration(method, vendorExtensions);
+            return;
+        }
+
+        final Map<String, Object> integ = Json.mapper().convertValue(vendorExtensions.get(EXTENSION_INTEGRATION), JSON_OBJECT);
+
+        final boolean sameTarget = String.valueOf(integ.get("type")).equalsIgnoreCase(existing.getType())
+                && Objects.equals(getStringValue(integ.get("uri")), existing.getUri())
+                && Objects.equals(getStringValue(integ.get("httpMethod")), existing.getHttpMethod())
+                && Objects.equals(getStringValue(integ.get("credentials")), existing.getCredentials())
+                && Objects.equals(getStringValue(integ.get("cacheNamespace")), existing.getCacheNamespace())
+                && Objects.equals(nullToEmpty(getStringList(integ.get("cacheKeyParameters"))), nullToEmpty(existing.getCacheKeyParameters()));
+
+        if (!sameTarget) {
+            createIntegration(method, vendorExtensions);
+            return;
+        }
+
+        final List<PatchOperation> ops = new ArrayList<>();
+        ops.addAll(createMapOperations("/requestParameters", existing.getRequestParameters(), getStringMap(integ.get("requestParameters"))));
+        ops.addAll(createMapOperations("/requestTemplates", existing.getRequestTemplates(), getStringMap(integ.get("requestTemplates"))));
+
+        final Integration integration;
+        if (ops.isEmpty()) {
+            integration = existing;
+        } else {
+            LOG.info("Updating " + ops.size() + " integration properties");
+            integration = existing.updateIntegration(createPatchDocument(ops));
+        }
+
+        updateIntegrationResponses(integration, integ);
+    }
+
+    private Integration getIntegration(Method method) {
+        try {
+            return method.getMethodIntegration();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private void updateIntegrationResponses(Integration integration, Map<String, Object> integ) {
+        final Map<String, IntegrationResponse> existing = integration.getIntegrationResponses() == null
+                ? Collections.emptyMap() : integration.getIntegrationResponses();
+        final Map<String, Map<String, Object>> responses = Json.mapper().convertValue(integ.get("responses"), JSON_OBJECTS);
+        final Set<String> statuses = new HashSet<>();
+
+        responses.entrySet().forEach(e -> {
+            String pattern = e.getKey().equals("default") ? null : e.getKey();
+            Map<String, Object> response = e.getValue();
+
+            String status = getStringValue(response.get("statusCode"));
+            statuses.add(status);
+
+            final Map<String, String> parameters = getStringMap(response.get("responseParameters"));
+            final Map<String, String> templates = getStringMap(response.get("responseTemplates"));
+
+            final IntegrationResponse current = existing.get(status);
+            if (current != null
+                    && Objects.equals(pattern, current.getSelectionPattern())
+                    && Objects.equals(nullToEmpty(parameters), nullToEmpty(current.getResponseParameters()))
+                    && Objects.equals(nullToEmpty(templates), nullToEmpty(current.getResponseTemplates()))) {
+                return;
+            }
+
+            PutIntegrationResponseInput input = new PutIntegrationResponseInput()
+                    .withResponseParameters(parameters)
+                    .withResponseTemplates(templates)
+                    .withSelectionPattern(pattern);
+
+            integration.putIntegrationResponse(input, status);
+        });
+
+        existing.entrySet().stream()
+                .filter(e -> !statuses.contains(e.getKey()))
+                .forEach(e -> e.getValue().deleteIntegrationResponse());
+    }
+
+    private Map<String, String> getStringMap(Object value) {
+        return Json.mapper().convertValue(value, STRING_MAP);
+    }
+
+    private List<String> getStringList(Object value) {
+        return Json.mapper().convertValue(value, STRING_LIST);
+    }
+
+    private Map<String, String> nullToEmpty(Map<String, String> map) {
+        return map == null ? Collections.emptyMap() : map;
+    }
+
+    private List<String> nullToEmpty(List<String> list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    private void createIntegrationResponses(Integration integration, Map<String, Object> integ) {
+        final Map<String, Map<String, Object>> responses = Json.mapper().convertValue(integ.get("responses"), JSON_OBJECTS);
 
         responses.entrySet().forEach(e -> {
             String pattern = e.getKey().equals("default") ? null : e.getKey();
-            HashMap response = e.getValue();
+            Map<String, Object> response = e.getValue();
 
-            String status = (String) response.get("statusCode");
+            String status = getStringValue(response.get("statusCode"));
 
             PutIntegrationResponseInput input = new PutIntegrationResponseInput()
-                    .withResponseParameters((Map<String, String>) response.get("responseParameters"))
-                    .withResponseTemplates((Map<String, String>) response.get("responseTemplates"))
+                    .withResponseParameters(getStringMap(response.get("responseParameters")))
+                    .withResponseTemplates(getStringMap(response.get("responseTemplates")))
                     .withSelectionPattern(pattern);
 
             integration.putIntegrationResponse(input, status);
@@ -292,16 +1051,16 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         String authType = "NONE";
         if (op.getVendorExtensions() != null) {
             Object objectNode = op.getVendorExtensions().get(EXTENSION_AUTH);
-            Map<String, String> authExtension = Json.mapper().convertValue( objectNode, Map.class );
+            Map<String, Object> authExtension = Json.mapper().convertValue(objectNode, JSON_OBJECT);
 
             if (authExtension != null) {
-                authType = authExtension.get("type").toUpperCase();
+                authType = getStringValue(authExtension.get("type")).toUpperCase();
             }
         }
         return authType;
     }
 
-    private Boolean isApiKeyRequired(Operation op) {
+    private Boolean isApiKeyRequired(Swagger swagger, Operation op) {
         Optional<Map.Entry<String, SecuritySchemeDefinition>> apiKeySecurityDefinition = Optional.empty();
 
         if (swagger.getSecurityDefinitions() != null) {
@@ -324,19 +1083,27 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return false;
     }
 
-    private String generateSchema(Property model, String modelName, Map<String, io.swagger.models.Model> definitions) {
-        return generateSchemaString(model, modelName, definitions);
+    private String generateSchema(SwaggerImportContext ctx, Property model, String modelName) {
+        return generateSchemaString(ctx, model, modelName);
     }
 
-    private String generateSchemaString(Object model, String modelName, Map<String, io.swagger.models.Model> definitions) {
+    private String generateSchemaString(SwaggerImportContext ctx, Object model, String modelName) {
         try {
             String modelSchema = Json.mapper().writeValueAsString(model);
-            String models = Json.mapper().writeValueAsString(definitions);
+            String schema = ctx.getFlattenedSchemas().get(modelSchema);
+
+            if (schema == null) {
+                JsonNode models = ctx.getDefinitionsTree();
 
-            // inline all references
-            String schema = new SchemaTransformer().flatten(modelSchema, models);
+                // inline all references
+                schema = definitionCache != null
+                        ? definitionCache.getFlattenedSchema(modelSchema, ctx.getDefinitionsHash(), () -> new SchemaTransformer().flatten(modelSchema, models))
+                        : new SchemaTransformer().flatten(modelSchema, models);
 
-            LOG.info("Generated json-schema for model " + modelName + ": " + schema);
+                ctx.getFlattenedSchemas().put(modelSchema, schema);
+
+                LOG.info("Generated json-schema for model " + modelName + ": " + schema);
+            }
 
             return schema;
         } catch (IOException e) {
@@ -344,8 +1111,8 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         }
     }
 
-    private String generateSchema(io.swagger.models.Model model, String modelName, Map<String, io.swagger.models.Model> definitions) {
-        return generateSchemaString(model, modelName, definitions);
+    private String generateSchema(SwaggerImportContext ctx, io.swagger.models.Model model, String modelName) {
+        return generateSchemaString(ctx, model, modelName);
     }
 
     private Optional<String> getInputModel(BodyParameter p) {
@@ -381,11 +1148,12 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return "[^A-Za-z0-9]";
     }
 
-    private void updateResources(RestApi api, Resource rootResourceId, String basePath, Map<String, Path> paths, List<String> apiProduces) {
-        createResources(api, rootResourceId, basePath, apiProduces, paths, false);
+    private void updateResources(SwaggerImportContext ctx, RestApi api, Resource rootResourceId, String basePath, Map<String, Path> paths,
+                                 List<String> apiProduces, List<Resource> resources) {
+        createResources(ctx, api, rootResourceId, basePath, apiProduces, paths, false, resources);
     }
 
-    private void updateModels(RestApi api, Map<String, io.swagger.models.Model> definitions, List<String> apiProduces) {
+    private void updateModels(SwaggerImportContext ctx, RestApi api, Map<String, io.swagger.models.Model> definitions, List<String> apiProduces) {
         if (definitions == null) {
             return;
         }
@@ -394,46 +1162,40 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
             final String modelName = entry.getKey();
             final io.swagger.models.Model model = entry.getValue();
 
-            if (getModel(api, modelName).isPresent()) {
-                updateModel(api, modelName, model);
+            final Optional<Model> existing = getModel(api, modelName);
+
+            if (existing.isPresent()) {
+                updateModel(ctx, existing.get(), modelName, model);
             } else {
-                createModel(api, modelName, model, definitions, getProducesContentType(apiProduces, emptyList()));
+                createModel(ctx, api, modelName, model, getProducesContentType(apiProduces, emptyList()));
             }
         }
     }
 
-    private void updateModel(RestApi api, String modelName, io.swagger.models.Model model) {
-        LOG.info(format("Updating model for api id %s and model name %s", api.getId(), modelName));
-        updateModel(api, modelName, generateSchema(model, modelName, swagger.getDefinitions()));
+    private void updateModel(SwaggerImportContext ctx, RestApi api, String modelName, io.swagger.models.Model model) {
+        updateModel(ctx, api.getModelByName(modelName), modelName, model);
+    }
+
+    private void updateModel(SwaggerImportContext ctx, Model existing, String modelName, io.swagger.models.Model model) {
+        LOG.info(format("Updating model %s", modelName));
+
+        final String schema = generateSchema(ctx, model, modelName);
+        ctx.getModelFingerprints().put(modelName, ApiSnapshot.fingerprint(schema));
+
+        updateModel(ctx, existing, modelName, schema);
     }
 
-    private void updateMethod(RestApi api, Resource resource, String httpMethod, Operation op, String modelContentType) {
+    private void updateMethod(SwaggerImportContext ctx, RestApi api, Resource resource, String httpMethod, Operation op, String modelContentType) {
         LOG.info(format("Updating method for api id %s and resource %s and method %s", api.getId(), resource.getId(), httpMethod));
 
         PatchDocument pd = createPatchDocument(
                 createReplaceOperation("/authorizationType", getAuthorizationType(op)),
-                createReplaceOperation("/apiKeyRequired", getStringValue(isApiKeyRequired(op))));
+                createReplaceOperation("/apiKeyRequired", getStringValue(isApiKeyRequired(ctx.getSwagger(), op))));
         Method method = resource.getMethodByHttpMethod(httpMethod.toUpperCase()).updateMethod(pd);
 
-        updateMethodResponses(api, method, modelContentType, op.getResponses());
+        updateMethodResponses(ctx, api, method, modelContentType, op.getResponses());
         updateMethodParameters(api, method, op.getParameters());
-        createIntegration(method, op.getVendorExtensions());
-    }
-
-    private void cleanupMethods(RestApi api, String basePath, Map<String, Path> paths) {
-        LOG.info("Cleaning up removed methods");
-
-        for (Resource r : buildResourceList(api)) {
-            for (Method m : r.getResourceMethods().values()) {
-                String httpMethod = m.getHttpMethod().toLowerCase();
-
-                if (!isMethodInSwagger(r.getPath(), httpMethod, basePath, paths)) {
-                    LOG.info(format("Removing deleted method %s for resource %s", httpMethod, r.getId()));
-
-                    m.deleteMethod();
-                }
-            }
-        }
+        updateIntegration(method, op.getVendorExtensions());
     }
 
     private boolean isMethodInSwagger(String path, String httpMethod, String basePath, Map<String, Path> paths) {
@@ -450,24 +1212,59 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return false;
     }
 
-    private void cleanupResources(RestApi api, String basePath, Map<String, Path> paths) {
-        cleanupResources(api, buildResourceSet(paths.keySet(), basePath));
+    /*
+     * Remove the resources and methods no longer in the definition, planned from a single listing of the API. Only the
+     * top-most resource of each removed subtree is deleted, and methods are only deleted from resources that are kept.
+     * None of these deletions overlap, so they are issued concurrently
+     */
+    private void cleanupResources(SwaggerImportContext ctx, RestApi api, String basePath, Map<String, Path> paths, List<Resource> resources) {
+        LOG.info("Cleaning up removed resources and methods");
+
+        final Set<String> resourcePaths = new HashSet<>();
+        resourcePaths.add(buildResourcePath(basePath, "/"));
+        paths.keySet().forEach(path -> resourcePaths.add(buildResourcePath(basePath, path)));
+
+        final Predicate<String> deletable = getDeletableResources(ctx.getScope(), basePath,
+                                                                  resources.stream().map(Resource::getPath).collect(Collectors.toList()));
+        final List<Resource> orphans = getOrphanedResources(resources, resourcePaths, deletable);
+        final List<Runnable> deletions = new ArrayList<>();
+
+        orphans.forEach(resource -> deletions.add(() -> {
+            LOG.info("Removing deleted resource " + resource.getPath());
+            deleteResource(resource);
+        }));
+
+        resources.stream()
+                .filter(r -> canDeleteMethods(ctx.getScope(), basePath, r.getPath()) && !isInSubtree(r.getPath(), orphans))
+                .forEach(r -> deletions.add(() -> cleanupMethods(r, basePath, paths)));
+
+        deleteConcurrently(deletions);
+
+        resources.removeIf(r -> isInSubtree(r.getPath(), orphans));
     }
 
-    private Set<String> buildResourceSet(Set<String> paths, String basePath) {
-        if (StringUtils.isBlank(basePath)) {
-            basePath = "/";
+    private boolean isInSubtree(String path, List<Resource> roots) {
+        return roots.stream().anyMatch(root -> path.equals(root.getPath()) || path.startsWith(root.getPath() + "/"));
+    }
+
+    private void cleanupMethods(Resource resource, String basePath, Map<String, Path> paths) {
+        // resources created by this update are returned without their methods, which are all in the definition
+        if (resource.getResourceMethods() == null) {
+            return;
         }
 
-        Set<String> resourceSet = new HashSet<>();
-        for (String path : paths) {
-            resourceSet.addAll(Arrays.asList(path.split("/")));
+        for (Method m : resource.getResourceMethods().values()) {
+            String httpMethod = m.getHttpMethod().toLowerCase();
+
+            if (!isMethodInSwagger(resource.getPath(), httpMethod, basePath, paths)) {
+                LOG.info(format("Removing deleted method %s for resource %s", httpMethod, resource.getId()));
+
+                m.deleteMethod();
+            }
         }
-        resourceSet.addAll(Arrays.asList(basePath.split("/")));
-        return resourceSet;
     }
 
-    private PutMethodResponseInput getCreateResponseInput(RestApi api, String modelContentType, Response response) {
+    private PutMethodResponseInput getCreateResponseInput(SwaggerImportContext ctx, RestApi api, String modelContentType, Response response) {
 
         final PutMethodResponseInput input = new PutMethodResponseInput();
 
@@ -484,7 +1281,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
             input.setResponseModels(new HashMap<>());
             String modelName = modelOpt.get().getName();
             input.getResponseModels().put(modelContentType, modelName);
-            this.processedModels.add(modelName);
+            ctx.getProcessedModels().add(modelName);
             LOG.info("Found reference to existing model " + modelName);
         } else {
             // generate a model based on the schema if the model doesn't already exist
@@ -493,7 +1290,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
 
                 LOG.info("Creating new model referenced from response: " + modelName);
 
-                createModel(api, modelName, response.getSchema(), modelContentType);
+                createModel(ctx, api, modelName, response.getSchema(), modelContentType);
 
                 input.setResponseModels(new HashMap<>());
                 input.getResponseModels().put(modelContentType, modelName);
@@ -503,7 +1300,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return input;
     }
 
-    private void createMethodResponses(RestApi api, Method method, String modelContentType, Map<String, Response> responses) {
+    private void createMethodResponses(SwaggerImportContext ctx, RestApi api, Method method, String modelContentType, Map<String, Response> responses) {
         if (responses == null) {
             return;
         }
@@ -516,7 +1313,7 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
                 LOG.info(format("Creating method response for api %s and method %s and status %s",
                                 api.getId(), method.getHttpMethod(), e.getKey()));
 
-                method.putMethodResponse(getCreateResponseInput(api, modelContentType, e.getValue()), e.getKey());
+                method.putMethodResponse(getCreateResponseInput(ctx, api, modelContentType, e.getValue()), e.getKey());
             }
         });
     }
@@ -582,23 +1379,27 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return Optional.empty();
     }
 
-    private void updateMethodParameters(RestApi api, Method method, List<Parameter> parameters) {
-        // clear existing params
-        if (method.getRequestParameters() != null) {
-            method.getRequestParameters().keySet().forEach(
-                    k -> method.updateMethod(createPatchDocument(createRemoveOperation("/requestParameters/" + k))));
-        }
+    void updateMethodParameters(RestApi api, Method method, List<Parameter> parameters) {
+        final Map<String, Boolean> desired = new HashMap<>();
+        parameters.stream()
+                .filter(p -> !p.getIn().equals("body") && getParameterLocation(p).isPresent())
+                .forEach(p -> desired.put(createRequestParameterExpression(p), p.getRequired()));
+
+        // only send the params that differ from the existing method, in a single patch
+        final List<PatchOperation> ops = createMapOperations("/requestParameters", method.getRequestParameters(), desired);
 
-        // add all params from swaqgger
-        createMethodParameters(api, method, parameters);
+        if (!ops.isEmpty()) {
+            LOG.info(format("Updating %s method parameters for api %s and method %s", ops.size(), api.getId(), method.getHttpMethod()));
+            method.updateMethod(createPatchDocument(ops));
+        }
     }
 
-    private void updateMethodResponses(RestApi api, Method method, String modelContentType, Map<String, Response> responses) {
+    private void updateMethodResponses(SwaggerImportContext ctx, RestApi api, Method method, String modelContentType, Map<String, Response> responses) {
         Map<String, MethodResponse> responseMap = method.getMethodResponses();
 
         // delete all existing responses
         responseMap.values().forEach(MethodResponse::deleteMethodResponse);
-        createMethodResponses(api, method, modelContentType, responses);
+        createMethodResponses(ctx, api, method, modelContentType, responses);
     }
 
     /*
@@ -631,16 +1432,4 @@ public class ApiGatewaySdkSwaggerApiImporter extends ApiGatewaySdkApiImporter im
         return DEFAULT_PRODUCES_CONTENT_TYPE;
     }
 
-    private void cleanupResources(RestApi api, Set<String> paths) {
-        LOG.info("Cleaning up removed resources");
-
-        // don't remove the resource if it's path part exists in any of the swagger paths
-        // this prevents intermediate resources from being deleted, but may also prevent deletion when resources are "moved"
-        buildResourceList(api).stream().filter(resource -> !paths.contains(resource.getPathPart()) && !resource.getPath().equals("/"))
-                .forEach(resource -> {
-                    LOG.info("Removing deleted resource " + resource.getPath());
-                    deleteResource(resource);
-                });
-    }
-
 }
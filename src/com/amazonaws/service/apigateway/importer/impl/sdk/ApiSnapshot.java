@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * State of an API as last applied by the importer: resource ids by path, a fingerprint of each method and a
+ * fingerprint of each model. Used to plan an update without listing the whole API
+ */
+public class ApiSnapshot {
+    private String apiId;
+    private Map<String, ResourceState> resources = new TreeMap<>();
+    private Map<String, String> models = new TreeMap<>();
+
+    public ApiSnapshot() {
+    }
+
+    public ApiSnapshot(String apiId) {
+        this.apiId = apiId;
+    }
+
+    public String getApiId() {
+        return apiId;
+    }
+
+    public void setApiId(String apiId) {
+        this.apiId = apiId;
+    }
+
+    /**
+     * @return resource state keyed by full resource path
+     */
+    public Map<String, ResourceState> getResources() {
+        return resources;
+    }
+
+    public void setResources(Map<String, ResourceState> resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * @return model fingerprints keyed by model name. Models generated from inline schemas have no fingerprint
+     */
+    public Map<String, String> getModels() {
+        return models;
+    }
+
+    public void setModels(Map<String, String> models) {
+        this.models = models;
+    }
+
+    public ResourceState putResource(String path, String id, String parentId) {
+        ResourceState state = new ResourceState();
+        state.setId(id);
+        state.setParentId(parentId);
+        resources.put(path, state);
+        return state;
+    }
+
+    public static String fingerprint(String... values) {
+        return Hashing.sha256().hashString(String.join("\u0000", values), StandardCharsets.UTF_8).toString();
+    }
+
+    public static class ResourceState {
+        private String id;
+        private String parentId;
+        private Map<String, String> methods = new TreeMap<>();
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public void setParentId(String parentId) {
+            this.parentId = parentId;
+        }
+
+        /**
+         * @return method fingerprints keyed by upper case http method
+         */
+        public Map<String, String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Map<String, String> methods) {
+            this.methods = methods;
+        }
+    }
+}
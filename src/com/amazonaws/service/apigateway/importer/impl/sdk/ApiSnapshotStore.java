@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Stores one {@link ApiSnapshot} per API id as a json file in a local directory
+ */
+public class ApiSnapshotStore {
+    private static final Log LOG = LogFactory.getLog(ApiSnapshotStore.class);
+
+    private final File directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ApiSnapshotStore(File directory) {
+        this.directory = directory;
+    }
+
+    public Optional<ApiSnapshot> load(String apiId) {
+        final File file = getFile(apiId);
+
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(mapper.readValue(file, ApiSnapshot.class));
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable snapshot " + file, e);
+            return Optional.empty();
+        }
+    }
+
+    public void save(ApiSnapshot snapshot) {
+        final File file = getFile(snapshot.getApiId());
+        final File tmp = new File(directory, file.getName() + ".tmp");
+
+        try {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+
+            // write then rename so a concurrent reader never sees a partial snapshot
+            mapper.writeValue(tmp, snapshot);
+
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Could not rename " + tmp + " to " + file);
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not save snapshot for API " + snapshot.getApiId(), e);
+        }
+    }
+
+    /**
+     * Remove the snapshot of an API whose live state no longer matches it
+     */
+    public void invalidate(String apiId) {
+        final File file = getFile(apiId);
+
+        if (file.exists() && !file.delete()) {
+            LOG.warn("Could not delete snapshot " + file);
+        }
+    }
+
+    private File getFile(String apiId) {
+        return new File(directory, apiId + ".json");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of a single import, passed through the importer call chain. The importers keep no state of their own, so one
+ * importer instance can run any number of imports, one after another or concurrently
+ */
+public class ImportContext {
+    private final ImportJournal journal;
+    private final ImportScope scope;
+
+    // keep track of the models created/updated from the definition file. Any orphaned models left in the API will be deleted
+    private final Set<String> processedModels = ConcurrentHashMap.newKeySet();
+
+    public ImportContext(ImportJournal journal) {
+        this(journal, ImportScope.all());
+    }
+
+    public ImportContext(ImportJournal journal, ImportScope scope) {
+        this.journal = journal;
+        this.scope = scope;
+    }
+
+    /**
+     * @return record of the operations completed by the import, used to resume a failed import
+     */
+    public ImportJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return the part of the definition being imported, cleanup never goes outside of it
+     */
+    public ImportScope getScope() {
+        return scope;
+    }
+
+    public Set<String> getProcessedModels() {
+        return processedModels;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.services.apigateway.model.IntegrationType;
+import com.amazonaws.services.apigateway.model.PutIntegrationInput;
+import com.amazonaws.services.apigateway.model.PutIntegrationResponseInput;
+import com.amazonaws.util.json.JSONArray;
+import com.amazonaws.util.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * API Gateway metadata of a RAML definition, decoded once from the --raml-config file and indexed by resource path and
+ * method. Invalid values are collected as errors and unknown or incomplete entries as warnings, so that all of them can
+ * be reported before the first call to API Gateway
+ */
+public class RamlConfig {
+    private static final Set<String> METHODS = keys("get", "put", "post", "delete", "patch", "head", "options");
+    private static final Set<String> METHOD_KEYS = keys("auth", "integration");
+    private static final Set<String> AUTH_KEYS = keys("type");
+    private static final Set<String> INTEGRATION_KEYS = keys("type", "uri", "credentials", "httpMethod", "requestParameters",
+                                                             "requestTemplates", "cacheNamespace", "cacheKeyParameters", "responses");
+    private static final Set<String> RESPONSE_KEYS = keys("statusCode", "responseParameters", "responseTemplates");
+
+    private static final RamlConfig EMPTY = new RamlConfig(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList());
+
+    // method config keyed by resource path, then by lower case http method
+    private final Map<String, Map<String, MethodConfig>> methods;
+    private final List<String> errors;
+    private final List<String> warnings;
+
+    private RamlConfig(Map<String, Map<String, MethodConfig>> methods, List<String> errors, List<String> warnings) {
+        this.methods = methods;
+        this.errors = errors;
+        this.warnings = warnings;
+    }
+
+    public static RamlConfig empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param config the content of the config file, may be null
+     */
+    public static RamlConfig parse(JSONObject config) {
+        if (config == null) {
+            return EMPTY;
+        }
+
+        final Map<String, Map<String, MethodConfig>> methods = new HashMap<>();
+        final List<String> errors = new ArrayList<>();
+        final List<String> warnings = new ArrayList<>();
+
+        for (String path : keys(config)) {
+            final JSONObject resource = config.optJSONObject(path);
+
+            if (resource == null) {
+                warnings.add(format("%s: expected an object of methods", path));
+                continue;
+            }
+
+            final Map<String, MethodConfig> resourceMethods = new HashMap<>();
+
+            for (String method : keys(resource)) {
+                final String name = format("%s %s", method.toUpperCase(), path);
+                final JSONObject methodConfig = resource.optJSONObject(method);
+
+                if (!METHODS.contains(method.toLowerCase())) {
+                    warnings.add(format("%s: unknown method", name));
+                    continue;
+                } else if (methodConfig == null) {
+                    warnings.add(format("%s: expected an object", name));
+                    continue;
+                }
+
+                checkKeys(name, methodConfig, METHOD_KEYS, warnings);
+
+                final JSONObject auth = methodConfig.optJSONObject("auth");
+                if (auth != null) {
+                    checkKeys(name + " auth", auth, AUTH_KEYS, warnings);
+                }
+                final String authorizationType = auth == null || auth.optString("type", null) == null
+                        ? "NONE" : auth.optString("type").toUpperCase();
+
+                final IntegrationConfig integration = parseIntegration(name, methodConfig.optJSONObject("integration"), errors, warnings);
+
+                resourceMethods.put(method.toLowerCase(), new MethodConfig(authorizationType, integration));
+            }
+
+            methods.put(path, Collections.unmodifiableMap(resourceMethods));
+        }
+
+        return new RamlConfig(Collections.unmodifiableMap(methods), Collections.unmodifiableList(errors),
+                              Collections.unmodifiableList(warnings));
+    }
+
+    private static IntegrationConfig parseIntegration(String name, JSONObject integ, List<String> errors, List<String> warnings) {
+        if (integ == null) {
+            return null;
+        }
+
+        checkKeys(name + " integration", integ, INTEGRATION_KEYS, warnings);
+
+        final String type = integ.optString("type", null);
+        final String uri = integ.optString("uri", null);
+
+        if (type == null || uri == null) {
+            warnings.add(format("%s: integration without a type or uri is skipped", name));
+            return null;
+        }
+
+        if (Arrays.stream(IntegrationType.values()).noneMatch(t -> t.name().equalsIgnoreCase(type))) {
+            errors.add(format("%s: unknown integration type '%s', expected one of %s",
+                              name, type, Arrays.toString(IntegrationType.values())));
+            return null;
+        }
+
+        final List<ResponseConfig> responses = new ArrayList<>();
+        final JSONObject responsesConfig = integ.optJSONObject("responses");
+
+        if (responsesConfig != null) {
+            for (String key : keys(responsesConfig)) {
+                final JSONObject response = responsesConfig.optJSONObject(key);
+                final String statusCode = response == null ? null : response.optString("statusCode", null);
+
+                if (statusCode == null) {
+                    warnings.add(format("%s: integration response '%s' without a statusCode is skipped", name, key));
+                    continue;
+                }
+
+                checkKeys(format("%s integration response '%s'", name, key), response, RESPONSE_KEYS, warnings);
+
+                responses.add(new ResponseConfig(key.equals("default") ? null : key, statusCode,
+                                                 toMap(response.optJSONObject("responseParameters")),
+                                                 toMap(response.optJSONObject("responseTemplates"))));
+            }
+        }
+
+        final JSONArray cacheKeys = integ.optJSONArray("cacheKeyParameters");
+        final List<String> cacheKeyParameters;
+        if (cacheKeys == null) {
+            cacheKeyParameters = null;
+        } else {
+            final List<String> list = new ArrayList<>();
+            for (int i = 0; i < cacheKeys.length(); i++) {
+                list.add(cacheKeys.optString(i));
+            }
+            cacheKeyParameters = Collections.unmodifiableList(list);
+        }
+
+        // optional strings default to "" as they always have
+        return new IntegrationConfig(IntegrationType.valueOf(type.toUpperCase()), uri, integ.optString("credentials"),
+                                     integ.optString("httpMethod"), toMap(integ.optJSONObject("requestParameters")),
+                                     toMap(integ.optJSONObject("requestTemplates")), integ.optString("cacheNamespace"),
+                                     cacheKeyParameters, Collections.unmodifiableList(responses));
+    }
+
+    /**
+     * @return errors that prevent the config from being applied
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return unknown keys and entries that are ignored
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public Optional<MethodConfig> getMethod(String path, String httpMethod) {
+        final Map<String, MethodConfig> resource = methods.get(path);
+        return resource == null ? Optional.empty() : Optional.ofNullable(resource.get(httpMethod.toLowerCase()));
+    }
+
+    /**
+     * @return the authorization type of the method, NONE if it has no config
+     */
+    public String getAuthorizationType(String path, String httpMethod) {
+        return getMethod(path, httpMethod).map(MethodConfig::getAuthorizationType).orElse("NONE");
+    }
+
+    public Optional<IntegrationConfig> getIntegration(String path, String httpMethod) {
+        return getMethod(path, httpMethod).flatMap(MethodConfig::getIntegration);
+    }
+
+    private static void checkKeys(String name, JSONObject object, Set<String> known, List<String> warnings) {
+        for (String key : keys(object)) {
+            if (!known.contains(key)) {
+                warnings.add(format("%s: unknown key '%s'", name, key));
+            }
+        }
+    }
+
+    private static Map<String, String> toMap(JSONObject json) {
+        if (json == null) {
+            return null;
+        }
+
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (String key : keys(json)) {
+            map.put(key, json.optString(key));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static List<String> keys(JSONObject json) {
+        final List<String> keys = new ArrayList<>();
+        final Iterator<?> iterator = json.keys();
+        while (iterator.hasNext()) {
+            keys.add((String) iterator.next());
+        }
+        return keys;
+    }
+
+    private static Set<String> keys(String... keys) {
+        return Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(keys)));
+    }
+
+    public static class MethodConfig {
+        private final String authorizationType;
+        private final IntegrationConfig integration;
+
+        MethodConfig(String authorizationType, IntegrationConfig integration) {
+            this.authorizationType = authorizationType;
+            this.integration = integration;
+        }
+
+        public String getAuthorizationType() {
+            return authorizationType;
+        }
+
+        public Optional<IntegrationConfig> getIntegration() {
+            return Optional.ofNullable(integration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MethodConfig && Objects.equals(authorizationType, ((MethodConfig) o).authorizationType)
+                    && Objects.equals(integration, ((MethodConfig) o).integration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(authorizationType, integration);
+        }
+    }
+
+    public static class IntegrationConfig {
+        private final IntegrationType type;
+        private final String uri;
+        private final String credentials;
+        private final String httpMethod;
+        private final Map<String, String> requestParameters;
+        private final Map<String, String> requestTemplates;
+        private final String cacheNamespace;
+        private final List<String> cacheKeyParameters;
+        private final List<ResponseConfig> responses;
+
+        IntegrationConfig(IntegrationType type, String uri, String credentials, String httpMethod,
+                          Map<String, String> requestParameters, Map<String, String> requestTemplates,
+                          String cacheNamespace, List<String> cacheKeyParameters, List<ResponseConfig> responses) {
+            this.type = type;
+            this.uri = uri;
+            this.credentials = credentials;
+            this.httpMethod = httpMethod;
+            this.requestParameters = requestParameters;
+            this.requestTemplates = requestTemplates;
+            this.cacheNamespace = cacheNamespace;
+            this.cacheKeyParameters = cacheKeyParameters;
+            this.responses = responses;
+        }
+
+        public IntegrationType getType() {
+            return type;
+        }
+
+        public List<ResponseConfig> getResponses() {
+            return responses;
+        }
+
+        public PutIntegrationInput toInput() {
+            return new PutIntegrationInput()
+                    .withType(type)
+                    .withUri(uri)
+                    .withCredentials(credentials)
+                    .withHttpMethod(httpMethod)
+                    .withRequestParameters(requestParameters == null ? null : new HashMap<>(requestParameters))
+                    .withRequestTemplates(requestTemplates == null ? null : new HashMap<>(requestTemplates))
+                    .withCacheNamespace(cacheNamespace)
+                    .withCacheKeyParameters(cacheKeyParameters == null ? null : new ArrayList<>(cacheKeyParameters));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof IntegrationConfig)) {
+                return false;
+            }
+            final IntegrationConfig other = (IntegrationConfig) o;
+            return type == other.type && Objects.equals(uri, other.uri) && Objects.equals(credentials, other.credentials)
+                    && Objects.equals(httpMethod, other.httpMethod) && Objects.equals(requestParameters, other.requestParameters)
+                    && Objects.equals(requestTemplates, other.requestTemplates) && Objects.equals(cacheNamespace, other.cacheNamespace)
+                    && Objects.equals(cacheKeyParameters, other.cacheKeyParameters) && Objects.equals(responses, other.responses);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, uri, credentials, httpMethod, requestParameters, requestTemplates, cacheNamespace,
+                                cacheKeyParameters, responses);
+        }
+    }
+
+    public static class ResponseConfig {
+        private final String selectionPattern;
+        private final String statusCode;
+        private final Map<String, String> responseParameters;
+        private final Map<String, String> responseTemplates;
+
+        ResponseConfig(String selectionPattern, String statusCode, Map<String, String> responseParameters,
+                       Map<String, String> responseTemplates) {
+            this.selectionPattern = selectionPattern;
+            this.statusCode = statusCode;
+            this.responseParameters = responseParameters;
+            this.responseTemplates = responseTemplates;
+        }
+
+        public String getStatusCode() {
+            return statusCode;
+        }
+
+        public PutIntegrationResponseInput toInput() {
+            return new PutIntegrationResponseInput()
+                    .withResponseParameters(responseParameters == null ? null : new HashMap<>(responseParameters))
+                    .withResponseTemplates(responseTemplates == null ? null : new HashMap<>(responseTemplates))
+                    .withSelectionPattern(selectionPattern);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ResponseConfig)) {
+                return false;
+            }
+            final ResponseConfig other = (ResponseConfig) o;
+            return Objects.equals(selectionPattern, other.selectionPattern) && Objects.equals(statusCode, other.statusCode)
+                    && Objects.equals(responseParameters, other.responseParameters)
+                    && Objects.equals(responseTemplates, other.responseTemplates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(selectionPattern, statusCode, responseParameters, responseTemplates);
+        }
+    }
+}
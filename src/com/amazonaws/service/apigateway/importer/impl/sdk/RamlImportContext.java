@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.amazonaws.services.apigateway.model.Resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * State of a single import of a RAML definition
+ */
+public class RamlImportContext extends ImportContext {
+    private final RamlConfig config;
+
+    // paths of the resources defined by the RAML file. Any other resource left in the API will be deleted
+    private final Set<String> paths = ConcurrentHashMap.newKeySet();
+
+    // resources of the API, listed once per import and kept up to date as resources are created
+    private final List<Resource> resources = new CopyOnWriteArrayList<>();
+
+    // locks of the resources being looked up or created, by parent id and path part
+    private final Map<String, Object> resourceLocks = new ConcurrentHashMap<>();
+
+    private final RamlSchemaRegistry schemas = new RamlSchemaRegistry();
+
+    public RamlImportContext(RamlConfig config, ImportJournal journal) {
+        this(config, journal, ImportScope.all());
+    }
+
+    public RamlImportContext(RamlConfig config, ImportJournal journal, ImportScope scope) {
+        super(journal, scope);
+        this.config = config;
+    }
+
+    /**
+     * @return API Gateway metadata for the RAML definition, empty if none was given
+     */
+    public RamlConfig getConfig() {
+        return config;
+    }
+
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    public List<Resource> getResources() {
+        return resources;
+    }
+
+    /**
+     * @return the lock to hold while looking up or creating the child of a resource
+     */
+    public Object getResourceLock(String parentId, String pathPart) {
+        return resourceLocks.computeIfAbsent(parentId + "/" + pathPart, key -> new Object());
+    }
+
+    /**
+     * @return the models of the schemas referenced by the RAML definition
+     */
+    public RamlSchemaRegistry getSchemas() {
+        return schemas;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.impl.SchemaTransformer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Models of the RAML schemas of one import. Schemas are canonicalized and keyed by the hash of their content, so a
+ * schema repeated inline across methods, or an inline copy of a named schema, maps to a single model
+ */
+public class RamlSchemaRegistry {
+    // canonical schema of each schema as written in the definition
+    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+
+    // model name keyed by the hash of the canonical schema
+    private final Map<String, String> models = new ConcurrentHashMap<>();
+
+    // held while the model of a schema is created, keyed by the hash of the canonical schema
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    // models the api had before the import
+    private final Set<String> existingModels = ConcurrentHashMap.newKeySet();
+
+    public void addExistingModels(Collection<String> names) {
+        existingModels.addAll(names);
+    }
+
+    public boolean exists(String modelName) {
+        return existingModels.contains(modelName);
+    }
+
+    public Schema canonicalize(String schema) {
+        return schemas.computeIfAbsent(schema, Schema::new);
+    }
+
+    /**
+     * Map a named schema to its model, so that inline copies of the schema reference the same model
+     */
+    public void registerNamed(String modelName, String schema) {
+        models.putIfAbsent(canonicalize(schema).getHash(), modelName);
+    }
+
+    /**
+     * Get the model of an inline schema, creating it the first time the schema is seen. Only callers of the same schema
+     * wait for its model to be created
+     * @param create creates the model of the schema and returns its name
+     */
+    public String getModelName(String schema, Function<Schema, String> create) {
+        final Schema canonical = canonicalize(schema);
+        final String modelName = models.get(canonical.getHash());
+        if (modelName != null) {
+            return modelName;
+        }
+
+        synchronized (locks.computeIfAbsent(canonical.getHash(), hash -> new Object())) {
+            final String created = models.get(canonical.getHash());
+            if (created != null) {
+                return created;
+            }
+
+            final String name = create.apply(canonical);
+            models.put(canonical.getHash(), name);
+            return name;
+        }
+    }
+
+    public static class Schema {
+        private final String content;
+        private final Optional<String> contentType;
+        private final String hash;
+
+        Schema(String schema) {
+            this.contentType = detectContentType(schema);
+            this.content = contentType.equals(Optional.of("application/json"))
+                    ? SchemaTransformer.canonicalize(schema.trim()) : schema.trim();
+            this.hash = ApiSnapshot.fingerprint(content);
+        }
+
+        /**
+         * @return the schema with json whitespace removed and object keys sorted, or the trimmed schema if it is not json
+         */
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * @return application/json or text/xml, empty if the schema is neither
+         */
+        public Optional<String> getContentType() {
+            return contentType;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return a name for the model of the schema, stable across imports of the same schema. The name carries 128 bits
+         * of the hash, so distinct schemas don't end up sharing a model
+         */
+        public String getModelName() {
+            return "model" + hash.substring(0, 32);
+        }
+
+        private static Optional<String> detectContentType(String schema) {
+            // HACK: Attempt to detect JSON/XML bodies.
+            final int openTagIndex = schema.indexOf('<');
+            final int openJsonIndex = schema.indexOf('{');
+
+            if (openTagIndex == openJsonIndex) {
+                return Optional.empty();
+            }
+
+            final boolean isJson = openJsonIndex > -1 && (openTagIndex == -1 || openJsonIndex < openTagIndex);
+            return Optional.of(isJson ? "application/json" : "text/xml");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.hal.Link;
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps an API Gateway client so that every request it makes, including requests made by the resources it returns,
+ * first acquires a permit from a rate limiter. A limiter shared by several clients keeps their combined request rate
+ * under the account limit. The requests can also be counted, along with the size of their bodies
+ */
+public class RateLimitedApiGateway implements InvocationHandler {
+    private static final Log LOG = LogFactory.getLog(RateLimitedApiGateway.class);
+    private static final String MODEL_PACKAGE = ApiGateway.class.getPackage().getName();
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final Object target;
+    private final RateLimiter rateLimiter;
+    private final RequestStats stats;
+
+    private RateLimitedApiGateway(Object target, RateLimiter rateLimiter, RequestStats stats) {
+        this.target = target;
+        this.rateLimiter = rateLimiter;
+        this.stats = stats;
+    }
+
+    public static ApiGateway wrap(ApiGateway client, RateLimiter rateLimiter) {
+        return wrap(client, rateLimiter, null);
+    }
+
+    /**
+     * @param rateLimiter limiter to acquire a permit from before each request, null to not limit requests
+     * @param stats stats recording each request, null to not count requests
+     */
+    public static ApiGateway wrap(ApiGateway client, RateLimiter rateLimiter, RequestStats stats) {
+        return (ApiGateway) wrap(client, ApiGateway.class, rateLimiter, stats);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // methods following a link are the ones sending a request, property getters read the loaded representation
+        if (method.isAnnotationPresent(Link.class)) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            if (stats != null) {
+                stats.record(getBodySize(args));
+            }
+        }
+
+        final Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        return wrapResult(result, rateLimiter, stats);
+    }
+
+    /*
+     * Size of the input object sent as the request body, the string arguments are path parameters
+     */
+    private static long getBodySize(Object[] args) {
+        long size = 0;
+
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg != null && !(arg instanceof String)) {
+                    try {
+                        size += MAPPER.writeValueAsBytes(arg).length;
+                    } catch (JsonProcessingException e) {
+                        // the request is still counted, without the size of this argument
+                        LOG.debug("Could not measure the size of " + arg.getClass().getSimpleName(), e);
+                    }
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private static Object wrapResult(Object result, RateLimiter rateLimiter, RequestStats stats) {
+        if (result instanceof List) {
+            final List<Object> list = new ArrayList<>();
+            ((List<?>) result).forEach(item -> list.add(wrapResult(item, rateLimiter, stats)));
+            return list;
+        }
+
+        if (result instanceof Map) {
+            final Map<Object, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) result).forEach((k, v) -> map.put(k, wrapResult(v, rateLimiter, stats)));
+            return map;
+        }
+
+        if (result != null) {
+            for (Class<?> type : result.getClass().getInterfaces()) {
+                if (type.getPackage() != null && type.getPackage().getName().equals(MODEL_PACKAGE)) {
+                    return wrap(result, type, rateLimiter, stats);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static Object wrap(Object target, Class<?> type, RateLimiter rateLimiter, RequestStats stats) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                                      new RateLimitedApiGateway(target, rateLimiter, stats));
+    }
+}
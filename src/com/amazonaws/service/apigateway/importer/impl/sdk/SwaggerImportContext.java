@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of a single import of a swagger definition
+ */
+public class SwaggerImportContext extends ImportContext {
+    private final Swagger swagger;
+
+    // fingerprints of the schemas generated from the swagger definitions, recorded in the api snapshot
+    private final Map<String, String> modelFingerprints = new ConcurrentHashMap<>();
+
+    // flattened schemas by the json of the model they were generated from, shared by the validation and the import
+    private final Map<String, String> flattenedSchemas = new ConcurrentHashMap<>();
+
+    private JsonNode definitionsTree;
+    private String definitionsHash;
+
+    public SwaggerImportContext(Swagger swagger, ImportJournal journal) {
+        this(swagger, journal, ImportScope.all());
+    }
+
+    /**
+     * @param swagger the definition already limited to the scope
+     */
+    public SwaggerImportContext(Swagger swagger, ImportJournal journal, ImportScope scope) {
+        super(journal, scope);
+        this.swagger = swagger;
+    }
+
+    public Swagger getSwagger() {
+        return swagger;
+    }
+
+    public Map<String, String> getModelFingerprints() {
+        return modelFingerprints;
+    }
+
+    public Map<String, String> getFlattenedSchemas() {
+        return flattenedSchemas;
+    }
+
+    /**
+     * @return the definitions as a json tree, built once and only read by the schemas generated during the import
+     */
+    public synchronized JsonNode getDefinitionsTree() {
+        if (definitionsTree == null) {
+            definitionsTree = Json.mapper().valueToTree(swagger.getDefinitions());
+        }
+        return definitionsTree;
+    }
+
+    /**
+     * @return hash of the definitions json, streamed into the hash rather than held as a string
+     */
+    public synchronized String getDefinitionsHash() throws IOException {
+        if (definitionsHash == null) {
+            final Hasher hasher = Hashing.sha256().newHasher();
+            try (OutputStream out = Funnels.asOutputStream(hasher)) {
+                Json.mapper().writeValue(out, getDefinitionsTree());
+            }
+            definitionsHash = hasher.hash().toString();
+        }
+        return definitionsHash;
+    }
+}
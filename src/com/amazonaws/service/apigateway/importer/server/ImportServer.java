@@ -0,0 +1,244 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.server;
+
+import com.amazonaws.service.apigateway.importer.batch.BatchImporter;
+import com.amazonaws.service.apigateway.importer.batch.ImportJob;
+import com.amazonaws.service.apigateway.importer.batch.ImportJobResult;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Long-running import service. Jobs are accepted over HTTP, queued on the worker pool of a {@link BatchImporter} whose
+ * injectors, clients and parsers stay warm between jobs, and can be polled for their status and log.
+ *
+ * <pre>
+ * POST /jobs           submit an {@link ImportJob}, returns the job status including its id
+ * GET  /jobs           status of all known jobs
+ * GET  /jobs/{id}      status of a job
+ * GET  /jobs/{id}/log  log of a job
+ * </pre>
+ */
+public class ImportServer {
+    private static final Log LOG = LogFactory.getLog(ImportServer.class);
+
+    // finished jobs are forgotten, oldest first, once there are more than this
+    private static final int MAX_FINISHED_JOBS = 1000;
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private final BatchImporter importer;
+    private final File logDirectory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, JobState> jobs = new LinkedHashMap<>();
+
+    private HttpServer server;
+
+    public ImportServer(BatchImporter importer, File logDirectory) {
+        this.importer = importer;
+        this.logDirectory = logDirectory;
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        if (!logDirectory.exists() && !logDirectory.mkdirs()) {
+            throw new IOException("Could not create directory " + logDirectory);
+        }
+
+        server = HttpServer.create(address, 0);
+        server.createContext("/jobs", this::handle);
+        server.start();
+
+        LOG.info("Accepting import jobs on http://" + address.getHostString() + ":" + getAddress().getPort() + "/jobs");
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public JobState submit(ImportJob job) {
+        job.validate();
+
+        final JobState state = new JobState(UUID.randomUUID().toString(), job);
+        state.logFile = new File(logDirectory, state.id + ".log");
+
+        synchronized (jobs) {
+            jobs.put(state.id, state);
+            evictFinishedJobs();
+        }
+
+        LOG.info("Queued job " + state.id + ": " + job);
+
+        importer.submit(() -> run(state));
+
+        return state;
+    }
+
+    public Optional<JobState> getJob(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    private ImportJobResult run(JobState state) {
+        state.status = Status.RUNNING;
+
+        try {
+            JobLogAppender.begin(state.logFile);
+        } catch (IOException e) {
+            LOG.warn("Could not open log of job " + state.id, e);
+        }
+
+        try {
+            final ImportJobResult result = importer.importApi(state.job);
+
+            state.result = result;
+            state.status = result.isSucceeded() ? Status.SUCCEEDED : Status.FAILED;
+
+            LOG.info("Job " + state.id + " " + state.status);
+
+            return result;
+        } finally {
+            JobLogAppender.end();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        int finished = 0;
+        for (JobState state : jobs.values()) {
+            if (state.isFinished()) {
+                finished++;
+            }
+        }
+
+        final Iterator<JobState> it = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && it.hasNext()) {
+            final JobState state = it.next();
+
+            if (state.isFinished()) {
+                it.remove();
+                if (!state.logFile.delete()) {
+                    LOG.debug("Could not delete log " + state.logFile);
+                }
+                finished--;
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            final String method = exchange.getRequestMethod();
+
+            if (path.length == 2 && method.equals("POST")) {
+                final ImportJob job = mapper.readValue(exchange.getRequestBody(), ImportJob.class);
+                respond(exchange, 202, "application/json", mapper.writeValueAsBytes(submit(job)));
+            } else if (path.length == 2 && method.equals("GET")) {
+                final List<JobState> states;
+                synchronized (jobs) {
+                    states = new ArrayList<>(jobs.values());
+                }
+                respond(exchange, 200, "application/json", mapper.writeValueAsBytes(states));
+            } else if (path.length == 3 && method.equals("GET")) {
+                final Optional<JobState> state = getJob(path[2]);
+
+                if (state.isPresent()) {
+                    respond(exchange, 200, "application/json", mapper.writeValueAsBytes(state.get()));
+                } else {
+                    respond(exchange, 404, "text/plain", "Unknown job".getBytes(StandardCharsets.UTF_8));
+                }
+            } else if (path.length == 4 && path[3].equals("log") && method.equals("GET")) {
+                final Optional<JobState> state = getJob(path[2]);
+
+                if (state.isPresent() && state.get().logFile.exists()) {
+                    respond(exchange, 200, "text/plain", FileUtils.readFileToByteArray(state.get().logFile));
+                } else {
+                    respond(exchange, 404, "text/plain", "Unknown job".getBytes(StandardCharsets.UTF_8));
+                }
+            } else {
+                respond(exchange, 404, "text/plain", "Not found".getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            respond(exchange, 400, "text/plain", String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        } catch (Throwable t) {
+            LOG.error("Error handling request " + exchange.getRequestURI(), t);
+            respond(exchange, 500, "text/plain", String.valueOf(t.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static class JobState {
+        private final String id;
+        private final ImportJob job;
+        private volatile Status status = Status.QUEUED;
+        private volatile ImportJobResult result;
+        private File logFile;
+
+        JobState(String id, ImportJob job) {
+            this.id = id;
+            this.job = job;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ImportJob getJob() {
+            return job;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public ImportJobResult getResult() {
+            return result;
+        }
+
+        @JsonIgnore
+        public boolean isFinished() {
+            return status == Status.SUCCEEDED || status == Status.FAILED;
+        }
+    }
+}
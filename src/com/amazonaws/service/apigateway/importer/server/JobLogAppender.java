@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.server;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Layout;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Copies the log events of the current thread to the log file of the job it is running. A job runs on a single worker
+ * thread, so this separates the logs of concurrent jobs. The pools an import creates to deploy stages, create resources
+ * or delete in parallel are started from the job's thread, so their threads inherit the job's log file
+ */
+public class JobLogAppender extends AppenderSkeleton {
+    private static final ThreadLocal<Writer> WRITER = new InheritableThreadLocal<>();
+
+    public JobLogAppender(Layout layout) {
+        setLayout(layout);
+    }
+
+    /**
+     * Start copying the log events of the current thread to a file
+     */
+    public static void begin(File file) throws IOException {
+        WRITER.set(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stop copying the log events of the current thread
+     */
+    public static void end() {
+        final Writer writer = WRITER.get();
+        WRITER.remove();
+
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+        final Writer writer = WRITER.get();
+
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.write(layout.format(event));
+
+            final String[] throwable = event.getThrowableStrRep();
+            if (throwable != null && layout.ignoresThrowable()) {
+                for (String line : throwable) {
+                    writer.write(line);
+                    writer.write(System.lineSeparator());
+                }
+            }
+
+            writer.flush();
+        } catch (IOException e) {
+            errorHandler.error("Could not write job log", e, 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return true;
+    }
+}
@@ -18,6 +18,10 @@ import com.amazonaws.services.apigateway.model.PatchDocument;
 import com.amazonaws.services.apigateway.model.PatchOperation;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class PatchUtils {
 
@@ -52,4 +56,40 @@ public class PatchUtils {
         }
         return pd;
     }
+
+    public static PatchDocument createPatchDocument(List<PatchOperation> ops) {
+        PatchDocument pd = new PatchDocument();
+        pd.setPatchOperations(new ArrayList<>(ops));
+        return pd;
+    }
+
+    /**
+     * Create the operations turning the current entries of a map property into the desired ones, leaving equal entries untouched
+     * @param path path of the map property, e.g. /requestTemplates
+     */
+    public static List<PatchOperation> createMapOperations(String path, Map<String, ?> current, Map<String, ?> desired) {
+        final Map<String, ?> from = current == null ? Collections.emptyMap() : current;
+        final Map<String, ?> to = desired == null ? Collections.emptyMap() : desired;
+        final List<PatchOperation> ops = new ArrayList<>();
+
+        from.keySet().stream()
+                .filter(k -> !to.containsKey(k))
+                .forEach(k -> ops.add(createRemoveOperation(path + "/" + escapeOperationString(k))));
+
+        to.forEach((k, v) -> {
+            final String value = v == null ? null : v.toString();
+
+            if (!from.containsKey(k)) {
+                ops.add(createAddOperation(path + "/" + escapeOperationString(k), value));
+            } else if (!Objects.equals(from.get(k) == null ? null : from.get(k).toString(), value)) {
+                ops.add(createReplaceOperation(path + "/" + escapeOperationString(k), value));
+            }
+        });
+
+        return ops;
+    }
+
+    public static String escapeOperationString(String value) {
+        return value.replaceAll("~", "~0").replaceAll("/", "~1");
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.util;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.String.format;
+
+/**
+ * Measures the steps taken before the first call to API Gateway. The breakdown is logged once, when the credentials
+ * are first resolved, if the timer is enabled. Steps marked after that are not recorded
+ */
+public class StartupTimer {
+    private static final Log LOG = LogFactory.getLog(StartupTimer.class);
+
+    private final long start = System.nanoTime();
+
+    // duration of each step in milliseconds, in the order they completed
+    private final Map<String, Long> steps = new LinkedHashMap<>();
+
+    // claimed by the first call for credentials, which is the only one timed
+    private final AtomicBoolean first = new AtomicBoolean();
+
+    private long last = start;
+    private boolean enabled;
+    private volatile boolean logged;
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * End a step, which started when the previous step ended
+     */
+    public void mark(String step) {
+        if (logged) {
+            return;
+        }
+
+        synchronized (this) {
+            final long now = System.nanoTime();
+
+            steps.merge(step, TimeUnit.NANOSECONDS.toMillis(now - last), Long::sum);
+            last = now;
+        }
+    }
+
+    /**
+     * Wrap a credentials provider, so that the time spent before the first call and resolving the credentials is
+     * recorded and logged when the first call is made. Other calls go straight to the provider
+     */
+    public AWSCredentialsProvider time(AWSCredentialsProvider provider) {
+        return new AWSCredentialsProvider() {
+            @Override
+            public AWSCredentials getCredentials() {
+                if (!first.compareAndSet(false, true)) {
+                    return provider.getCredentials();
+                }
+
+                mark("prepare import");
+                final AWSCredentials credentials = provider.getCredentials();
+                mark("resolve credentials");
+                log();
+
+                return credentials;
+            }
+
+            @Override
+            public void refresh() {
+                provider.refresh();
+            }
+        };
+    }
+
+    private synchronized void log() {
+        if (logged) {
+            return;
+        }
+        logged = true;
+
+        if (!enabled) {
+            return;
+        }
+
+        final long jvm = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                - ManagementFactory.getRuntimeMXBean().getStartTime();
+        long total = jvm;
+
+        LOG.info("Startup timing:");
+        LOG.info(format("  %-20s %6dms", "start jvm", jvm));
+        for (Map.Entry<String, Long> step : steps.entrySet()) {
+            LOG.info(format("  %-20s %6dms", step.getKey(), step.getValue()));
+            total += step.getValue();
+        }
+        LOG.info(format("  %-20s %6dms", "total", total));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeploymentPlanTest {
+
+    @Test
+    public void testParse() {
+        DeploymentPlan plan = DeploymentPlan.parse("dev, qa:prod");
+
+        assertEquals(Arrays.asList(Arrays.asList("dev", "qa"), Arrays.asList("prod")), plan.getWaves());
+        assertEquals("dev,qa:prod", plan.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParse_empty() {
+        DeploymentPlan.parse(":,");
+    }
+
+    @Test
+    public void testDeploy_waveIsConcurrent() {
+        // each stage of the wave waits for the other, so this only completes if they are deployed concurrently
+        CountDownLatch latch = new CountDownLatch(2);
+        List<String> deployed = new CopyOnWriteArrayList<>();
+
+        DeploymentPlan.parse("dev,qa:prod").deploy(stage -> {
+            if (!stage.equals("prod")) {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            deployed.add(stage);
+        });
+
+        assertEquals(3, deployed.size());
+        assertEquals("prod", deployed.get(2));
+    }
+
+    @Test
+    public void testDeploy_failureStopsLaterWaves() {
+        List<String> deployed = new CopyOnWriteArrayList<>();
+
+        try {
+            DeploymentPlan.parse("dev,qa:prod").deploy(stage -> {
+                if (stage.equals("qa")) {
+                    throw new RuntimeException("qa is broken");
+                }
+                deployed.add(stage);
+            });
+            fail("Expected the deployment to fail");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("qa is broken"));
+        }
+
+        assertEquals(Arrays.asList("dev"), deployed);
+    }
+}
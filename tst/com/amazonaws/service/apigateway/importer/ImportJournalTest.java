@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("import-journal-test", ".journal");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testLoad_restoresCompletedOperations() {
+        ImportJournal journal = ImportJournal.create(file);
+        journal.recordApi("abc123");
+        journal.recordCompleted(ImportJournal.MODEL, "Product");
+        journal.recordCompleted(ImportJournal.METHOD, "/products GET");
+
+        ImportJournal loaded = ImportJournal.load(file);
+
+        assertTrue(loaded.isResumed());
+        assertEquals("abc123", loaded.getApiId().get());
+        assertTrue(loaded.isCompleted(ImportJournal.MODEL, "Product"));
+        assertTrue(loaded.isCompleted(ImportJournal.METHOD, "/products GET"));
+        assertFalse(loaded.isCompleted(ImportJournal.METHOD, "/products POST"));
+    }
+
+    @Test
+    public void testLoad_ignoresTornLastLine() throws IOException {
+        ImportJournal.create(file).recordApi("abc123");
+
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("meth");
+        }
+
+        assertEquals("abc123", ImportJournal.load(file).getApiId().get());
+    }
+
+    @Test
+    public void testLoad_ignoresTornLastEntry() throws IOException {
+        ImportJournal.create(file).recordApi("abc123");
+
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write(ImportJournal.METHOD + "\t/products G");
+        }
+
+        ImportJournal loaded = ImportJournal.load(file);
+
+        assertFalse(loaded.isCompleted(ImportJournal.METHOD, "/products G"));
+
+        // the next entry starts on a line of its own
+        loaded.recordCompleted(ImportJournal.METHOD, "/products GET");
+
+        assertTrue(ImportJournal.load(file).isCompleted(ImportJournal.METHOD, "/products GET"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoad_noApi() {
+        ImportJournal.create(file).recordCompleted(ImportJournal.MODEL, "Product");
+
+        ImportJournal.load(file);
+    }
+
+    @Test
+    public void testInMemory_notResumable() {
+        ImportJournal journal = ImportJournal.inMemory();
+        journal.recordApi("abc123");
+
+        assertFalse(journal.getFile().isPresent());
+        assertFalse(journal.isResumed());
+        assertTrue(journal.isCompleted(ImportJournal.API, "abc123"));
+    }
+
+}
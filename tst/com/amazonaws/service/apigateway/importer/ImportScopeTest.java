@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer;
+
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.junit.Test;
+import org.raml.model.Raml;
+
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImportScopeTest {
+
+    @Test
+    public void testIncludesPath_globs() {
+        ImportScope scope = new ImportScope(Arrays.asList("/billing/**", "/users/*/profile"), Arrays.asList("/billing/internal/**"), null);
+
+        assertTrue(scope.includesPath("/billing"));
+        assertTrue(scope.includesPath("/billing/invoices/{id}"));
+        assertTrue(scope.includesPath("/users/{id}/profile"));
+        assertFalse(scope.includesPath("/users/{id}/settings/profile"));
+        assertFalse(scope.includesPath("/billingx"));
+        assertFalse(scope.includesPath("/billing/internal"));
+        assertFalse(scope.includesPath("/billing/internal/audit"));
+        assertFalse(scope.includesPath("/"));
+    }
+
+    @Test
+    public void testAll() throws URISyntaxException {
+        Swagger swagger = read("/swagger/uber.json");
+
+        assertFalse(ImportScope.all().isPartial());
+        assertTrue(ImportScope.all().canDelete("/anything"));
+        assertSame(swagger, ImportScope.all().apply(swagger));
+    }
+
+    @Test
+    public void testApply_swaggerKeepsReferencedDefinitions() throws URISyntaxException {
+        Swagger swagger = read("/swagger/uber.json");
+
+        Swagger scoped = new ImportScope(Collections.singletonList("/history"), null, null).apply(swagger);
+
+        assertEquals(Collections.singleton("/history"), scoped.getPaths().keySet());
+        assertEquals(new HashSet<>(Arrays.asList("Activities", "Activity", "Error")), scoped.getDefinitions().keySet());
+        assertEquals(5, swagger.getPaths().size());
+    }
+
+    @Test
+    public void testApply_swaggerTags() throws URISyntaxException {
+        Swagger swagger = read("/swagger/uber.json");
+
+        ImportScope scope = new ImportScope(null, null, Collections.singletonList("Estimates"));
+        Swagger scoped = scope.apply(swagger);
+
+        assertEquals(new HashSet<>(Arrays.asList("/estimates/price", "/estimates/time")), scoped.getPaths().keySet());
+        assertEquals(new HashSet<>(Arrays.asList("PriceEstimate", "Product", "Error")), scoped.getDefinitions().keySet());
+        assertFalse(scope.canDelete("/estimates/price"));
+    }
+
+    @Test
+    public void testCanDelete() {
+        ImportScope scope = new ImportScope(Collections.singletonList("/billing/**"), null, null);
+
+        assertTrue(scope.canDelete("/billing/invoices"));
+        assertFalse(scope.canDelete("/users"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testApply_ramlTags() {
+        new ImportScope(null, null, Collections.singletonList("Estimates")).apply(new Raml());
+    }
+
+    private Swagger read(String resource) throws URISyntaxException {
+        return new SwaggerParser().read(Paths.get(getClass().getResource(resource).toURI()).toString());
+    }
+}
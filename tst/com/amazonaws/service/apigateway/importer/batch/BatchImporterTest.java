@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.batch;
+
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.service.apigateway.importer.impl.sdk.MockRestApi;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.google.common.io.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class BatchImporterTest {
+
+    private File manifest;
+    private String swaggerFile;
+
+    @Before
+    public void setUp() throws IOException, URISyntaxException {
+        manifest = File.createTempFile("batch-importer-test", ".json");
+        swaggerFile = Paths.get(getClass().getResource("/swagger/petstore.json").toURI()).toString();
+    }
+
+    @After
+    public void tearDown() {
+        manifest.delete();
+    }
+
+    @Test
+    public void testReadManifest() throws IOException {
+        write("[{\"file\":\"" + swaggerFile + "\",\"create\":true,\"stage\":\"test\"}," +
+                      "{\"file\":\"" + swaggerFile + "\",\"apiId\":\"abc123\",\"region\":\"eu-west-1\"}]");
+
+        List<ImportJob> jobs = BatchImporter.readManifest(manifest);
+
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.get(0).isCreate());
+        assertEquals("test", jobs.get(0).getStage());
+        assertFalse(jobs.get(1).isCreate());
+        assertEquals("abc123", jobs.get(1).getApiId());
+        assertEquals("eu-west-1", jobs.get(1).getRegion());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadManifest_createAndUpdate() throws IOException {
+        write("[{\"file\":\"" + swaggerFile + "\",\"create\":true,\"apiId\":\"abc123\"}]");
+
+        BatchImporter.readManifest(manifest);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadManifest_missingFile() throws IOException {
+        write("[{\"file\":\"missing.json\",\"create\":true}]");
+
+        BatchImporter.readManifest(manifest);
+    }
+
+    @Test
+    public void testImportAll_sharedParseFailure() throws IOException {
+        write("not a definition");
+
+        final List<ImportJob> jobs = new ArrayList<>();
+        for (String region : new String[] {"us-east-1", "eu-west-1"}) {
+            final ImportJob job = new ImportJob();
+            job.setFile(manifest.getPath());
+            job.setCreate(true);
+            job.setRegion(region);
+            jobs.add(job);
+        }
+
+        final List<ImportJobResult> results;
+        try (BatchImporter importer = new BatchImporter(new StaticCredentialsProvider(new AnonymousAWSCredentials()),
+                                                        "us-east-1", 2, 5)) {
+            results = importer.importAll(jobs);
+        }
+
+        assertEquals(2, results.size());
+        assertEquals("us-east-1", results.get(0).getRegion());
+        assertEquals("eu-west-1", results.get(1).getRegion());
+        for (ImportJobResult result : results) {
+            assertFalse(result.isSucceeded());
+            assertTrue(result.getError().contains("Unable to parse"));
+        }
+    }
+
+    @Test
+    public void testImportApi_failedCreateKeepsJournal() throws IOException {
+        ApiGateway client = mock(ApiGateway.class);
+        MockRestApi api = new MockRestApi(client, "abc123");
+        doThrow(new IllegalStateException("Listing models failed")).when(api.getRestApi()).getModels();
+        File journalDirectory = Files.createTempDir();
+
+        ImportJob job = new ImportJob();
+        job.setFile(swaggerFile);
+        job.setCreate(true);
+
+        ImportJobResult result;
+        try (BatchImporter importer = new BatchImporter(new StaticCredentialsProvider(new AnonymousAWSCredentials()),
+                                                        "us-east-1", 1, 5, journalDirectory,
+                                                        binder -> binder.bind(ApiGateway.class).toInstance(client))) {
+            result = importer.importApi(job);
+        }
+
+        assertFalse(result.isSucceeded());
+        assertEquals("abc123", result.getApiId());
+        assertNotNull(result.getJournalFile());
+        assertEquals(journalDirectory, new File(result.getJournalFile()).getParentFile());
+
+        ImportJournal journal = ImportJournal.load(new File(result.getJournalFile()));
+        assertEquals("abc123", journal.getApiId().get());
+        assertEquals(new File(swaggerFile).getAbsolutePath(), journal.getDefinition().get());
+    }
+
+    @Test
+    public void testImportApi_failedBeforeCreateDeletesJournal() throws IOException {
+        write("not a definition");
+        File journalDirectory = Files.createTempDir();
+
+        ImportJob job = new ImportJob();
+        job.setFile(manifest.getPath());
+        job.setCreate(true);
+
+        ImportJobResult result;
+        try (BatchImporter importer = new BatchImporter(new StaticCredentialsProvider(new AnonymousAWSCredentials()),
+                                                        "us-east-1", 1, 5, journalDirectory)) {
+            result = importer.importApi(job);
+        }
+
+        assertFalse(result.isSucceeded());
+        assertNull(result.getJournalFile());
+        assertEquals(0, journalDirectory.list().length);
+    }
+
+    @Test
+    public void testFailed_errorWithoutMessage() {
+        ImportJobResult result = ImportJobResult.failed(new ImportJob(), "us-east-1", null, new NullPointerException(), 0, new RequestStats());
+
+        assertEquals("java.lang.NullPointerException", result.getError());
+    }
+
+    private void write(String content) throws IOException {
+        try (FileWriter writer = new FileWriter(manifest)) {
+            writer.write(content);
+        }
+    }
+}
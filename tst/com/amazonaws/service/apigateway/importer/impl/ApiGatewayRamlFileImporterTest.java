@@ -36,6 +36,7 @@ import java.util.Arrays;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -59,6 +60,8 @@ public class ApiGatewayRamlFileImporterTest {
     @Mock
     private RestApi mockRestApi;
 
+    private Method mockMethod;
+
     @Before
     public void setUp() throws Exception {
         BasicConfigurator.configure();
@@ -71,7 +74,7 @@ public class ApiGatewayRamlFileImporterTest {
         RestApis mockRestApis = mock(RestApis.class);
         Integration mockIntegration = Mockito.mock(Integration.class);
 
-        Method mockMethod = Mockito.mock(Method.class);
+        mockMethod = Mockito.mock(Method.class);
         when(mockMethod.getHttpMethod()).thenReturn("GET");
         when(mockMethod.putIntegration(any())).thenReturn(mockIntegration);
 
@@ -118,6 +121,11 @@ public class ApiGatewayRamlFileImporterTest {
         verify(mockResource, atLeastOnce()).createResource(argThat(new LambdaMatcher<>(i -> i.getPathPart().equals("child"))));
     }
 
+    @Test
+    public void testImport_resourcesListedOnce() throws Exception {
+        verify(mockRestApi, times(1)).getResources();
+    }
+
     @Test
     public void testImport_create_methods() throws Exception {
         verify(mockChildResource, times(1)).putMethod(
@@ -128,6 +136,16 @@ public class ApiGatewayRamlFileImporterTest {
                 argThat(new LambdaMatcher<>(i -> i.equals("POST"))));
     }
 
+    @Test
+    public void testImport_create_methodParameters() throws Exception {
+        // parameters are sent with the new method, and each method is patched at most once
+        verify(mockChildResource, times(1)).putMethod(
+                argThat(new LambdaMatcher<>(i -> i.getRequestParameters().keySet().containsAll(
+                        Arrays.asList("method.request.querystring.latitude", "method.request.querystring.longitude")))),
+                argThat(new LambdaMatcher<>(i -> i.equals("POST"))));
+        verify(mockMethod, atMost(2)).updateMethod(any());
+    }
+
     @Test
     public void testImport_create_models() throws Exception {
         verify(mockRestApi, times(1)).createModel(argThat(new LambdaMatcher<>(i -> i.getName().equals("Product"))));
@@ -14,7 +14,9 @@
  */
 package com.amazonaws.service.apigateway.importer.impl;
 
+import com.amazonaws.service.apigateway.importer.DeploymentPlan;
 import com.amazonaws.service.apigateway.importer.SwaggerApiFileImporter;
+import com.amazonaws.service.apigateway.importer.SwaggerApiImporter;
 import com.amazonaws.service.apigateway.importer.config.SwaggerApiImporterTestModule;
 import com.amazonaws.services.apigateway.model.ApiGateway;
 import com.amazonaws.services.apigateway.model.Integration;
@@ -27,6 +29,7 @@ import com.amazonaws.services.apigateway.model.RestApi;
 import com.amazonaws.services.apigateway.model.RestApis;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.swagger.models.Swagger;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
@@ -142,6 +145,23 @@ public class ApiGatewaySwaggerFileImporterTest {
         verify(mockRestApi, atLeastOnce()).createModel(argThat(new LambdaMatcher<>(i -> i.getName().equals("Anarrayofproducts"))));
     }
 
+    @Test
+    public void testDeploy_reusesImportedDefinition() throws Exception {
+        DefinitionParser parser = mock(DefinitionParser.class);
+        SwaggerApiImporter swaggerImporter = mock(SwaggerApiImporter.class);
+        Swagger swagger = new Swagger();
+        String path = getResourcePath(API_GATEWAY);
+        when(parser.parseSwagger(path)).thenReturn(swagger);
+        when(swaggerImporter.createApi(any(), any(), any(), any())).thenReturn("abc123");
+
+        SwaggerApiFileImporter fileImporter = new ApiGatewaySwaggerFileImporter(parser, swaggerImporter);
+        String apiId = fileImporter.importApi(path);
+        fileImporter.deploy(apiId, DeploymentPlan.parse("prod"), path, false);
+
+        verify(parser, times(1)).parseSwagger(path);
+        verify(swaggerImporter).deploy("abc123", "prod", swagger, false);
+    }
+
     //    todo: add more tests
     private String getResourcePath(String path) throws URISyntaxException {
         return Paths.get(getClass().getResource(path).toURI()).toString();
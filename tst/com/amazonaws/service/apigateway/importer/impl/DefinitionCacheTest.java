@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class DefinitionCacheTest {
+
+    private File directory;
+    private DefinitionCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("definition-cache-test").toFile();
+        cache = new DefinitionCache(new File(directory, "cache"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testGetSwagger_cached() throws IOException, URISyntaxException {
+        String file = resource("/swagger/petstore.json");
+        AtomicInteger parses = new AtomicInteger();
+        Function<String, Swagger> parser = path -> {
+            parses.incrementAndGet();
+            return new SwaggerParser().read(path);
+        };
+
+        Swagger parsed = cache.getSwagger(file, parser);
+        Swagger cached = cache.getSwagger(file, parser);
+
+        assertEquals(1, parses.get());
+        assertEquals(Json.mapper().valueToTree(parsed), Json.mapper().valueToTree(cached));
+    }
+
+    @Test
+    public void testGetSwagger_referencedFileChanged() throws IOException {
+        File definition = new File(directory, "api.json");
+        File pet = new File(directory, "pet.json");
+        FileUtils.writeStringToFile(definition, "{\"definitions\":{\"Pet\":{\"$ref\":\"pet.json#/Pet\"}}}", "UTF-8");
+        FileUtils.writeStringToFile(pet, "{\"Pet\":{\"type\":\"string\"}}", "UTF-8");
+
+        AtomicInteger parses = new AtomicInteger();
+        Function<String, Swagger> parser = path -> {
+            parses.incrementAndGet();
+            return new Swagger();
+        };
+
+        cache.getSwagger(definition.getPath(), parser);
+        cache.getSwagger(definition.getPath(), parser);
+        assertEquals(1, parses.get());
+
+        FileUtils.writeStringToFile(pet, "{\"Pet\":{\"type\":\"integer\"}}", "UTF-8");
+
+        cache.getSwagger(definition.getPath(), parser);
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    public void testGetRaml_cached() throws IOException, URISyntaxException {
+        String file = new File(resource("/raml/example.raml")).toURI().toString();
+        AtomicInteger parses = new AtomicInteger();
+        Function<String, Raml> builder = path -> {
+            parses.incrementAndGet();
+            return new RamlDocumentBuilder().build(path);
+        };
+
+        Raml parsed = cache.getRaml(file, builder);
+        Raml cached = cache.getRaml(file, builder);
+
+        assertEquals(1, parses.get());
+        assertEquals(parsed.getTitle(), cached.getTitle());
+        assertEquals(parsed.getResources().keySet(), cached.getResources().keySet());
+    }
+
+    @Test
+    public void testGetRaml_cachedWithIncludes() throws IOException, URISyntaxException {
+        String file = resource("/raml/apigateway.raml");
+        AtomicInteger parses = new AtomicInteger();
+        Function<String, Raml> builder = path -> {
+            parses.incrementAndGet();
+            return new RamlDocumentBuilder().build(new File(path).toURI().toString());
+        };
+
+        Raml parsed = cache.getRaml(file, builder);
+        Raml cached = cache.getRaml(file, builder);
+
+        assertEquals(1, parses.get());
+        assertEquals(parsed.getResources().keySet(), cached.getResources().keySet());
+    }
+
+    @Test
+    public void testGetRaml_ignoresOtherClasses() throws IOException, URISyntaxException {
+        String file = resource("/raml/example.raml");
+        File entry = new File(directory, "cache/" + DefinitionCache.getRamlKeyIfLocal(file).get() + ".raml.ser");
+        entry.getParentFile().mkdirs();
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(entry))) {
+            out.writeObject(new File("not a raml model"));
+        }
+
+        AtomicInteger parses = new AtomicInteger();
+        Raml raml = cache.getRaml(file, path -> {
+            parses.incrementAndGet();
+            return new RamlDocumentBuilder().build(new File(path).toURI().toString());
+        });
+
+        assertEquals(1, parses.get());
+        assertNotNull(raml.getTitle());
+    }
+
+    private String resource(String name) throws IOException, URISyntaxException {
+        File copy = new File(directory, new File(name).getName());
+        FileUtils.copyFile(Paths.get(getClass().getResource(name).toURI()).toFile(), copy);
+        return copy.getPath();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class RamlLoaderTest {
+
+    private File directory;
+    private File definition;
+    private File schema;
+    private AtomicInteger builds;
+    private Function<String, Raml> builder;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("raml-loader-test").toFile();
+        definition = new File(directory, "api.raml");
+        schema = new File(directory, "pet.json");
+        FileUtils.writeStringToFile(definition, "#%RAML 0.8\ntitle: Pets\nschemas:\n  - Pet: !include pet.json\n/pets:\n  get:\n", "UTF-8");
+        FileUtils.writeStringToFile(schema, "{\"type\": \"object\"}", "UTF-8");
+
+        builds = new AtomicInteger();
+        builder = path -> {
+            builds.incrementAndGet();
+            return new RamlDocumentBuilder().build(path);
+        };
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testLoad_cached() {
+        RamlLoader loader = new RamlLoader();
+
+        Raml built = loader.load(definition.toURI().toString(), builder);
+        built.setTitle("Changed");
+        Raml cached = loader.load(definition.toURI().toString(), builder);
+
+        assertEquals(1, builds.get());
+        assertNotSame(built, cached);
+        assertEquals("Pets", cached.getTitle());
+        assertEquals("{\"type\": \"object\"}", cached.getSchemas().get(0).get("Pet"));
+    }
+
+    @Test
+    public void testLoad_includedFileChanged() throws IOException {
+        RamlLoader loader = new RamlLoader();
+
+        loader.load(definition.toURI().toString(), builder);
+        FileUtils.writeStringToFile(schema, "{\"type\": \"string\"}", "UTF-8");
+        Raml raml = loader.load(definition.toURI().toString(), builder);
+
+        assertEquals(2, builds.get());
+        assertEquals("{\"type\": \"string\"}", raml.getSchemas().get(0).get("Pet"));
+    }
+
+    @Test
+    public void testLoad_evictsLeastRecentlyUsed() throws IOException {
+        RamlLoader loader = new RamlLoader(1);
+        File other = new File(directory, "other.raml");
+        FileUtils.writeStringToFile(other, "#%RAML 0.8\ntitle: Other\n", "UTF-8");
+
+        loader.load(definition.toURI().toString(), builder);
+        loader.load(other.toURI().toString(), builder);
+        loader.load(definition.toURI().toString(), builder);
+
+        assertEquals(3, builds.get());
+    }
+}
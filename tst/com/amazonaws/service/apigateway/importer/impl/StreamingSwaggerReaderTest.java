@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingSwaggerReaderTest {
+
+    @Test
+    public void testRead_sameAsSwaggerParser() throws IOException, URISyntaxException {
+        for (String name : new String[] {"petstore.json", "petstore-expanded.json", "apigateway.json", "large.json", "uber.json"}) {
+            File file = Paths.get(getClass().getResource("/swagger/" + name).toURI()).toFile();
+
+            Optional<Swagger> streamed = new StreamingSwaggerReader().read(file);
+            Swagger parsed = new SwaggerParser().read(file.getPath());
+
+            assertTrue(name, streamed.isPresent());
+            assertEquals(name, Json.mapper().valueToTree(parsed), Json.mapper().valueToTree(streamed.get()));
+        }
+    }
+
+    @Test
+    public void testRead_notSwagger20() throws IOException, URISyntaxException {
+        File file = Paths.get(getClass().getResource("/raml/apigateway.json").toURI()).toFile();
+
+        assertFalse(new StreamingSwaggerReader().read(file).isPresent());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl;
+
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwaggerDiffTest {
+
+    private static final String DEFINITIONS = "{\"Tag\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"%s\"}}}," +
+            "\"Pet\":{\"type\":\"object\",\"properties\":{\"tag\":{\"$ref\":\"#/definitions/Tag\"}}}," +
+            "\"Owner\":{\"type\":\"object\",\"properties\":{\"pet\":{\"$ref\":\"#/definitions/Pet\"}}}," +
+            "\"Error\":{\"type\":\"object\",\"properties\":{\"code\":{\"type\":\"integer\"}}}}";
+
+    private static final String PATHS = "{\"/pets\":{\"get\":{\"responses\":{\"200\":{\"description\":\"pet list\"," +
+            "\"schema\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/definitions/Pet\"}}}}}," +
+            "\"post\":{\"responses\":{\"200\":{\"description\":\"pet\",\"schema\":{\"$ref\":\"#/definitions/Pet\"}}}}}," +
+            "\"/errors\":{\"get\":{\"responses\":{\"200\":{\"description\":\"error list\"," +
+            "\"schema\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/definitions/Error\"}}}}}}}";
+
+    @Test
+    public void testDiff_transitiveReferences() {
+        Swagger previous = parse("string");
+        Swagger current = parse("integer");
+
+        SwaggerDiff diff = new SwaggerDiff(previous, current);
+
+        assertEquals(new HashSet<>(Arrays.asList("Tag")), diff.getChangedDefinitions());
+        assertEquals(new HashSet<>(Arrays.asList("Tag", "Pet", "Owner")), diff.getAffectedDefinitions());
+    }
+
+    @Test
+    public void testDiff_unchanged() {
+        SwaggerDiff diff = new SwaggerDiff(parse("string"), parse("string"));
+
+        assertTrue(diff.getAffectedDefinitions().isEmpty());
+        assertFalse(diff.isAffected(parse("string").getPath("/pets").getGet()));
+    }
+
+    @Test
+    public void testIsAffected_inlineSchemasOnly() {
+        Swagger current = parse("integer");
+        SwaggerDiff diff = new SwaggerDiff(parse("string"), current);
+
+        // inline schema referencing an affected definition
+        assertTrue(diff.isAffected(current.getPath("/pets").getGet()));
+        // direct reference, the model is updated by name
+        assertFalse(diff.isAffected(current.getPath("/pets").getPost()));
+        assertFalse(diff.isAffected(current.getPath("/errors").getGet()));
+    }
+
+    private Swagger parse(String tagNameType) {
+        return new SwaggerParser().parse("{\"swagger\":\"2.0\",\"info\":{\"title\":\"test\",\"version\":\"1\"}," +
+                "\"definitions\":" + String.format(DEFINITIONS, tagNameType) + ",\"paths\":" + PATHS + "}");
+    }
+}
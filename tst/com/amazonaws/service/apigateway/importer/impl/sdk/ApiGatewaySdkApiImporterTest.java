@@ -14,18 +14,49 @@
  */
 package com.amazonaws.service.apigateway.importer.impl.sdk;
 
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
 import com.amazonaws.service.apigateway.importer.config.SwaggerApiImporterTestModule;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.amazonaws.services.apigateway.model.CreateDeploymentInput;
+import com.amazonaws.services.apigateway.model.Deployment;
+import com.amazonaws.services.apigateway.model.Model;
+import com.amazonaws.services.apigateway.model.Resource;
+import com.amazonaws.services.apigateway.model.Resources;
+import com.amazonaws.services.apigateway.model.RestApi;
+import com.amazonaws.services.apigateway.model.Stage;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ApiGatewaySdkApiImporterTest {
 
     private ApiGatewaySdkApiImporter client;
+    private RestApi api;
 
     @Before
     public void setUp() throws Exception {
@@ -33,6 +64,16 @@ public class ApiGatewaySdkApiImporterTest {
 
         Injector injector = Guice.createInjector(new SwaggerApiImporterTestModule());
         client = injector.getInstance(ApiGatewaySdkApiImporter.class);
+
+        Stage stage = mock(Stage.class);
+        when(stage.getDeploymentId()).thenReturn("deployment");
+        Deployment deployment = mock(Deployment.class);
+        when(deployment.getDescription()).thenReturn("Imported definition abc");
+
+        api = mock(RestApi.class);
+        when(api.getStageByName("prod")).thenReturn(stage);
+        when(api.getDeploymentById("deployment")).thenReturn(deployment);
+        when(injector.getInstance(ApiGateway.class).getRestApiById("api")).thenReturn(api);
     }
 
     @Test
@@ -105,4 +146,174 @@ public class ApiGatewaySdkApiImporterTest {
         assertEquals("/v1/2/3/4/5/6", client.buildResourcePath(basePath, path));
     }
 
+    @Test
+    public void testDeploy_unchanged() {
+        client.deploy("api", "prod", "abc", false);
+
+        verify(api, never()).createDeployment(any(CreateDeploymentInput.class));
+    }
+
+    @Test
+    public void testDeploy_changed() {
+        client.deploy("api", "prod", "def", false);
+
+        ArgumentCaptor<CreateDeploymentInput> input = ArgumentCaptor.forClass(CreateDeploymentInput.class);
+        verify(api).createDeployment(input.capture());
+        assertEquals("prod", input.getValue().getStageName());
+        assertEquals("Imported definition def", input.getValue().getDescription());
+    }
+
+    @Test
+    public void testDeploy_force() {
+        client.deploy("api", "prod", "abc", true);
+
+        verify(api).createDeployment(any(CreateDeploymentInput.class));
+    }
+
+    @Test
+    public void testGetOrphanedResources_topMostOnly() {
+        List<Resource> resources = Arrays.asList(resource("r", null, "/"),
+                                                 resource("a", "r", "/pets"),
+                                                 resource("b", "a", "/pets/{id}"),
+                                                 resource("c", "r", "/stores"),
+                                                 resource("d", "c", "/stores/{id}"),
+                                                 resource("e", "d", "/stores/{id}/items"),
+                                                 resource("f", "r", "/users"));
+
+        List<Resource> orphans = client.getOrphanedResources(resources, Arrays.asList("/pets/{id}", "/users"), path -> true);
+
+        assertEquals(Collections.singletonList("c"), orphans.stream().map(Resource::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testGetOrphanedResources_notDeletable() {
+        List<Resource> resources = Arrays.asList(resource("r", null, "/"),
+                                                 resource("c", "r", "/stores"),
+                                                 resource("d", "c", "/stores/{id}"),
+                                                 resource("e", "c", "/stores/search"));
+
+        List<Resource> orphans = client.getOrphanedResources(resources, Collections.emptyList(),
+                                                             path -> !path.equals("/stores") && !path.equals("/stores/search"));
+
+        assertEquals(Collections.singletonList("d"), orphans.stream().map(Resource::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testCanDeleteMethods() {
+        ImportScope scope = new ImportScope(Collections.singletonList("/pets/**"), null, null);
+
+        assertTrue(client.canDeleteMethods(ImportScope.all(), "/v1", "/other"));
+        assertTrue(client.canDeleteMethods(scope, "/v1", "/v1/pets"));
+        assertTrue(client.canDeleteMethods(scope, "/v1", "/v1/pets/{id}"));
+        assertFalse(client.canDeleteMethods(scope, "/v1", "/v1/stores"));
+        assertFalse(client.canDeleteMethods(scope, "/v1", "/other/pets"));
+        assertFalse(client.canDeleteMethods(new ImportScope(null, null, Collections.singletonList("pets")), "/v1", "/v1/pets"));
+    }
+
+    @Test
+    public void testGetDeletableResources() {
+        ImportScope scope = new ImportScope(Collections.singletonList("/pets/**"), Collections.singletonList("/pets/*/photos"), null);
+
+        Predicate<String> deletable = client.getDeletableResources(scope, "/", Arrays.asList(
+                "/", "/pets", "/pets/{id}", "/pets/{id}/photos", "/pets/search", "/stores"));
+
+        // ancestors of a resource out of scope would delete it with them
+        assertFalse(deletable.test("/"));
+        assertFalse(deletable.test("/pets"));
+        assertFalse(deletable.test("/pets/{id}"));
+        assertFalse(deletable.test("/pets/{id}/photos"));
+        assertFalse(deletable.test("/stores"));
+        assertTrue(deletable.test("/pets/search"));
+        assertTrue(client.getDeletableResources(ImportScope.all(), "/", Collections.singletonList("/stores")).test("/stores"));
+    }
+
+    @Test
+    public void testBuildResourceList_stopsWhenComplete() {
+        List<Resource> firstPage = Arrays.asList(resource("r", null, "/"), resource("a", "r", "/pets"));
+        List<Resource> secondPage = Collections.singletonList(resource("b", "r", "/stores"));
+        Resources first = mock(Resources.class);
+        Resources second = mock(Resources.class);
+        when(first.getItem()).thenReturn(firstPage);
+        when(first._isLinkAvailable("next")).thenReturn(true);
+        when(first.getNext()).thenReturn(second);
+        when(second.getItem()).thenReturn(secondPage);
+        when(api.getResources()).thenReturn(first);
+
+        assertEquals(3, client.buildResourceList(api).size());
+
+        List<Resource> listed = client.buildResourceList(api, l -> l.stream().anyMatch(r -> r.getPath().equals("/pets")));
+
+        assertEquals(2, listed.size());
+        verify(first, times(1)).getNext();
+    }
+
+    @Test
+    public void testDeleteConcurrently() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch started = new CountDownLatch(2);
+        Runnable deletion = () -> {
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            try {
+                // both deletions only complete once both are running
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        client.deleteConcurrently(Arrays.asList(deletion, deletion));
+
+        assertEquals(2, threads.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeleteConcurrently_failure() {
+        client.deleteConcurrently(Arrays.asList(() -> {}, () -> { throw new IllegalStateException(); }));
+    }
+
+    @Test
+    public void testCreateResource_usesParentLinks() {
+        Resource parent = resource("r", null, "/");
+        Resource created = resource("a", "r", "/pets");
+        when(parent._isLinkAvailable("resource:create-child")).thenReturn(true);
+        when(parent.createResource(any())).thenReturn(created);
+        List<Resource> resources = new ArrayList<>(Collections.singletonList(parent));
+
+        assertEquals(created, client.createResource(api, parent, "pets", resources));
+        assertEquals(created, client.createResource(api, parent, "pets", resources));
+
+        verify(parent).createResource(any());
+        verify(api, never()).getResourceById(any());
+    }
+
+    @Test
+    public void testUpdateModel_unchanged() {
+        Model model = mock(Model.class);
+        when(model.getSchema()).thenReturn("{\n  \"type\": \"object\",\n  \"title\": \"Pet\"\n}");
+
+        client.updateModel(new ImportContext(ImportJournal.inMemory()), model, "Pet", "{\"title\":\"Pet\",\"type\":\"object\"}");
+
+        verify(model, never()).updateModel(any());
+    }
+
+    @Test
+    public void testUpdateModel_changed() {
+        Model model = mock(Model.class);
+        when(model.getSchema()).thenReturn("{\"type\":\"object\",\"title\":\"Pet\"}");
+
+        client.updateModel(new ImportContext(ImportJournal.inMemory()), model, "Pet", "{\"type\":\"string\",\"title\":\"Pet\"}");
+
+        verify(model).updateModel(any());
+    }
+
+    private Resource resource(String id, String parentId, String path) {
+        Resource resource = mock(Resource.class);
+        when(resource.getId()).thenReturn(id);
+        when(resource.getParentId()).thenReturn(parentId);
+        when(resource.getPath()).thenReturn(path);
+        when(resource.getPathPart()).thenReturn(path.substring(path.lastIndexOf('/') + 1));
+        return resource;
+    }
+
 }
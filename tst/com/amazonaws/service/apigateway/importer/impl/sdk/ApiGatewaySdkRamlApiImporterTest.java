@@ -0,0 +1,111 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.RamlApiFileImporter;
+import com.amazonaws.service.apigateway.importer.config.RamlApiImporterTestModule;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.amazonaws.util.json.JSONObject;
+import com.amazonaws.util.json.JSONTokener;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import com.google.inject.util.Modules;
+import junit.framework.Assert;
+import org.apache.log4j.BasicConfigurator;
+import org.junit.Before;
+import org.junit.Test;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.io.FileReader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class ApiGatewaySdkRamlApiImporterTest {
+
+    private static final String API_GATEWAY = "/raml/apigateway.raml";
+    private static final String API_GATEWAY_CONFIG = "/raml/apigateway.json";
+    private static final String EXAMPLE = "/raml/example.raml";
+    private static final String EXAMPLE_CONFIG = "/raml/example.json";
+
+    @Before
+    public void setUp() {
+        BasicConfigurator.configure();
+    }
+
+    @Test
+    public void testImportApi_concurrent() throws Exception {
+        final Map<String, Set<String>> sequential = importApi(API_GATEWAY, API_GATEWAY_CONFIG, 1);
+        final Map<String, Set<String>> concurrent = importApi(API_GATEWAY, API_GATEWAY_CONFIG, 4);
+
+        Assert.assertEquals("{/=[], /v1=[], /v1/products=[GET], /v1/products/child=[POST]}", concurrent.toString());
+        Assert.assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testImportApi_concurrentExample() throws Exception {
+        final Map<String, Set<String>> sequential = importApi(EXAMPLE, EXAMPLE_CONFIG, 1);
+        final Map<String, Set<String>> concurrent = importApi(EXAMPLE, EXAMPLE_CONFIG, 4);
+
+        Assert.assertEquals("{/=[], /{version}=[], /{version}/endpoint=[GET, POST]}", concurrent.toString());
+        Assert.assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testCreateApi_concurrentSharedPaths() throws Exception {
+        // sibling resources share the first part of their paths, which must only be created once
+        final StringBuilder raml = new StringBuilder("#%RAML 0.8\ntitle: Shared\nbaseUri: http://example.com/api\n");
+        for (int i = 0; i < 8; i++) {
+            raml.append("/shared/r").append(i).append(":\n  get:\n");
+            for (int j = 0; j < 3; j++) {
+                raml.append("  /c").append(j).append(":\n    post:\n");
+            }
+        }
+
+        final Injector injector = createInjector(4);
+        final MockRestApi api = new MockRestApi(injector.getInstance(ApiGateway.class), "api");
+        injector.getInstance(ApiGatewaySdkRamlApiImporter.class).createApi(
+                new RamlDocumentBuilder().build(raml.toString(), "shared.raml"), "shared", new JSONObject());
+
+        Assert.assertEquals(1 + 1 + 1 + 8 + 8 * 3, api.getPaths().size());
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals(Collections.singleton("GET"), api.getMethods("/api/shared/r" + i));
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals(Collections.singleton("POST"), api.getMethods("/api/shared/r" + i + "/c" + j));
+            }
+        }
+    }
+
+    // imports a fixture into a mocked api and returns the methods of every resource by path
+    private Map<String, Set<String>> importApi(String raml, String config, int concurrency) throws Exception {
+        final Injector injector = createInjector(concurrency);
+        final MockRestApi api = new MockRestApi(injector.getInstance(ApiGateway.class), "api");
+
+        injector.getInstance(RamlApiFileImporter.class).importApi(getClass().getResource(raml).toURI().toString(),
+                new JSONObject(new JSONTokener(new FileReader(getClass().getResource(config).getFile()))));
+
+        final Map<String, Set<String>> methods = new TreeMap<>();
+        api.getPaths().forEach(path -> methods.put(path, api.getMethods(path)));
+        return methods;
+    }
+
+    private Injector createInjector(int concurrency) {
+        return Guice.createInjector(Modules.override(new RamlApiImporterTestModule()).with(
+                binder -> binder.bindConstant().annotatedWith(Names.named("ramlConcurrency")).to(concurrency)));
+    }
+
+}
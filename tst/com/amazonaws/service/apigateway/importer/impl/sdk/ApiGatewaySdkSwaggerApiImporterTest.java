@@ -14,18 +14,77 @@
  */
 package com.amazonaws.service.apigateway.importer.impl.sdk;
 
+import com.amazonaws.service.apigateway.importer.ImportJournal;
+import com.amazonaws.service.apigateway.importer.ImportScope;
 import com.amazonaws.service.apigateway.importer.config.SwaggerApiImporterTestModule;
+import com.amazonaws.service.apigateway.importer.impl.LambdaMatcher;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.amazonaws.services.apigateway.model.Integration;
+import com.amazonaws.services.apigateway.model.IntegrationResponse;
+import com.amazonaws.services.apigateway.model.Method;
+import com.amazonaws.services.apigateway.model.Model;
+import com.amazonaws.services.apigateway.model.PatchDocument;
+import com.amazonaws.services.apigateway.model.PatchOperation;
+import com.amazonaws.services.apigateway.model.Resource;
+import com.amazonaws.services.apigateway.model.RestApi;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
 import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.HeaderParameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.IntegerProperty;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
 import junit.framework.Assert;
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class ApiGatewaySdkSwaggerApiImporterTest {
 
+    private static final String INVALID_SWAGGER = "{\"swagger\":\"2.0\",\"info\":{\"title\":\"Invalid\",\"version\":\"1\"},"
+            + "\"paths\":{\"/pets\":{"
+            + "\"post\":{\"parameters\":[{\"name\":\"pet\",\"in\":\"body\"}],\"responses\":{\"200\":{\"description\":\"ok\"}}},"
+            + "\"get\":{\"responses\":{\"200\":{\"description\":\"ok\",\"schema\":{\"$ref\":\"#/definitions/Pet\"}}},"
+            + "\"x-amazon-apigateway-integration\":{\"type\":\"lambda\",\"responses\":{\"default\":{}}}}}}}";
+
+    private static final String PETS_SWAGGER = "{\"swagger\":\"2.0\",\"info\":{\"title\":\"Pets\",\"version\":\"1\"},"
+            + "\"paths\":{\"/pets\":{"
+            + "\"get\":{\"responses\":{\"200\":{\"description\":\"ok\",\"schema\":{\"$ref\":\"#/definitions/Pet\"}}}},"
+            + "\"post\":{\"parameters\":[{\"name\":\"pet\",\"in\":\"body\",\"schema\":{\"$ref\":\"#/definitions/Pet\"}}],"
+            + "\"responses\":{\"400\":{\"description\":\"error\",\"schema\":{\"$ref\":\"#/definitions/Error\"}}}}}},"
+            + "\"definitions\":{\"Pet\":{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}},"
+            + "\"Error\":{\"type\":\"object\",\"properties\":{\"message\":{\"type\":\"string\"}}}}}";
+
     private ApiGatewaySdkSwaggerApiImporter client;
+    private ApiGateway apiGateway;
 
     @Before
     public void setUp() throws Exception {
@@ -33,6 +92,7 @@ public class ApiGatewaySdkSwaggerApiImporterTest {
 
         Injector injector = Guice.createInjector(new SwaggerApiImporterTestModule());
         client = injector.getInstance(ApiGatewaySdkSwaggerApiImporter.class);
+        apiGateway = injector.getInstance(ApiGateway.class);
     }
 
     @Test
@@ -49,4 +109,318 @@ public class ApiGatewaySdkSwaggerApiImporterTest {
         Assert.assertEquals("Wrong model name", 13, generated.length());
     }
 
+    @Test
+    public void testGetValidationErrors_allReported() {
+        Swagger swagger = new SwaggerParser().parse(INVALID_SWAGGER);
+
+        List<String> errors = client.getValidationErrors(new SwaggerImportContext(swagger, ImportJournal.inMemory()), true);
+
+        Assert.assertEquals(errors.toString(), 4, errors.size());
+        Assert.assertTrue(errors.contains("POST /pets: body parameter 'pet' must have a schema defined"));
+        Assert.assertTrue(errors.contains("GET /pets: response 200 references undefined model 'Pet'"));
+        Assert.assertTrue(errors.contains("GET /pets: unknown integration type 'lambda', expected one of [HTTP, AWS, MOCK]"));
+        Assert.assertTrue(errors.contains("GET /pets: integration response 'default' must define a statusCode"));
+    }
+
+    @Test
+    public void testGetValidationErrors_infoOnlyRequiredToCreate() {
+        Swagger swagger = new SwaggerParser().parse(PETS_SWAGGER);
+        swagger.setInfo(null);
+        SwaggerImportContext ctx = new SwaggerImportContext(swagger, ImportJournal.inMemory());
+
+        Assert.assertEquals(Collections.singletonList("Missing info object"), client.getValidationErrors(ctx, true));
+        Assert.assertEquals(Collections.emptyList(), client.getValidationErrors(ctx, false));
+    }
+
+    @Test
+    public void testCreateApi_invalidDefinition() {
+        try {
+            client.createApi(new SwaggerParser().parse(INVALID_SWAGGER), "test");
+            Assert.fail("Expected the definition to be rejected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Swagger definition has 4 error(s)"));
+        }
+
+        verifyZeroInteractions(apiGateway);
+    }
+
+    @Test
+    public void testResumeApi_skipsJournaledSteps() throws IOException {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        Model pet = api.addModel("Pet", "{}");
+        Resource pets = api.addPath("/pets", "GET");
+
+        File file = File.createTempFile("import-journal-test", ".journal");
+        try {
+            ImportJournal journal = ImportJournal.create(file);
+            journal.recordApi("abc123");
+            journal.recordCompleted(ImportJournal.STEP, "deleteDefaultModels");
+            journal.recordCompleted(ImportJournal.MODEL, "Pet");
+            journal.recordCompleted(ImportJournal.METHOD, "/pets GET");
+
+            // the previous attempt died before completing POST /pets
+            Assert.assertEquals("abc123", client.resumeApi(new SwaggerParser().parse(PETS_SWAGGER), ImportJournal.load(file)));
+
+            verify(pet, never()).updateModel(any());
+            verify(pet, never()).deleteModel();
+            verify(api.getRestApi()).createModel(argThat(new LambdaMatcher<>(i -> i.getName().equals("Error"))));
+            verify(pets, never()).putMethod(any(), eq("GET"));
+            verify(pets).putMethod(any(), eq("POST"));
+            Assert.assertEquals(new HashSet<>(Arrays.asList("GET", "POST")), api.getMethods("/pets"));
+            Assert.assertTrue(ImportJournal.load(file).isCompleted(ImportJournal.METHOD, "/pets POST"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testUpdateApi_fromSnapshot_onlyChangedMethodsAndModels() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        client.snapshotStore = new ApiSnapshotStore(Files.createTempDir());
+
+        // the first update lists the api and records the snapshot
+        client.updateApi("abc123", new SwaggerParser().parse(PETS_SWAGGER));
+
+        Resource pets = api.getResource("/pets");
+        Method get = api.getMethod("/pets", "GET");
+        Model pet = api.getModel("Pet");
+
+        Swagger changed = new SwaggerParser().parse(PETS_SWAGGER);
+        QueryParameter dryRun = new QueryParameter();
+        dryRun.setName("dryRun");
+        dryRun.setType("boolean");
+        changed.getPath("/pets").getPost().parameter(dryRun);
+        changed.path("/pets/{id}", new Path().get(new Operation().response(200, new Response().description("ok").schema(new RefProperty("Pet")))));
+
+        client.updateApi("abc123", changed);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/", "/pets", "/pets/{id}")), api.getPaths());
+        Assert.assertEquals(Collections.singleton("GET"), api.getMethods("/pets/{id}"));
+        verify(pets, never()).getMethodByHttpMethod("GET");
+        verify(get, never()).updateMethod(any());
+        verify(api.getMethod("/pets", "POST")).updateMethod(argThat(new LambdaMatcher<>(
+                pd -> pd.getPatchOperations().stream().anyMatch(op -> op.getPath().equals("/requestParameters/method.request.querystring.dryRun")))));
+
+        // the models referenced by the unchanged method are kept as they are
+        verify(pet, never()).updateModel(any());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Error", "Pet")), api.getModelNames());
+
+        // the second update plans from the snapshot, spot checking the first page of resources
+        verify(api.getRestApi(), times(2)).getResources();
+    }
+
+    @Test
+    public void testUpdateApi_fromSnapshot_deletesRemoved() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        client.snapshotStore = new ApiSnapshotStore(Files.createTempDir());
+
+        Swagger swagger = new SwaggerParser().parse(PETS_SWAGGER);
+        swagger.path("/pets/{id}", new Path().get(new Operation().response(200, new Response().description("ok").schema(new RefProperty("Pet")))));
+        client.updateApi("abc123", swagger);
+
+        Swagger removed = new SwaggerParser().parse(PETS_SWAGGER);
+        removed.getPath("/pets").setGet(null);
+        removed.getPath("/pets").getPost().getResponses().remove("400");
+        removed.getDefinitions().remove("Error");
+
+        client.updateApi("abc123", removed);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/", "/pets")), api.getPaths());
+        Assert.assertEquals(Collections.singleton("POST"), api.getMethods("/pets"));
+        Assert.assertEquals(Collections.singleton("Pet"), api.getModelNames());
+    }
+
+    @Test
+    public void testUpdateApi_addsPaths() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        api.addPath("/pets", "GET", "DELETE");
+
+        // the new resources come back from the service without their methods, and are cleaned up alongside the listed ones
+        Swagger swagger = new SwaggerParser().parse(PETS_SWAGGER);
+        swagger.path("/pets/{id}/toys", new Path().get(new Operation().response(200, new Response().description("ok"))));
+        client.updateApi("abc123", swagger);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/", "/pets", "/pets/{id}", "/pets/{id}/toys")), api.getPaths());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("GET", "POST")), api.getMethods("/pets"));
+        Assert.assertEquals(Collections.singleton("GET"), api.getMethods("/pets/{id}/toys"));
+    }
+
+    @Test
+    public void testUpdateApi_fromPreviousDefinition_withoutSnapshotStore() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        Swagger previous = new SwaggerParser().parse(PETS_SWAGGER);
+        client.updateApi("abc123", previous);
+
+        Swagger changed = new SwaggerParser().parse(PETS_SWAGGER);
+        changed.path("/pets/{id}", new Path().get(new Operation().response(200, new Response().description("ok").schema(new RefProperty("Pet")))));
+
+        client.updateApi("abc123", changed, new SwaggerParser().parse(PETS_SWAGGER));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/", "/pets", "/pets/{id}")), api.getPaths());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("GET", "POST")), api.getMethods("/pets"));
+        Assert.assertEquals(Collections.singleton("GET"), api.getMethods("/pets/{id}"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Error", "Pet")), api.getModelNames());
+    }
+
+    @Test
+    public void testUpdateApi_fromPreviousDefinition_onlyChangedMethodsAndModels() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        client.updateApi("abc123", new SwaggerParser().parse(PETS_SWAGGER));
+
+        Resource pets = api.getResource("/pets");
+        Method get = api.getMethod("/pets", "GET");
+        Model pet = api.getModel("Pet");
+        Model error = api.getModel("Error");
+
+        Swagger changed = new SwaggerParser().parse(PETS_SWAGGER);
+        QueryParameter dryRun = new QueryParameter();
+        dryRun.setName("dryRun");
+        dryRun.setType("boolean");
+        changed.getPath("/pets").getPost().parameter(dryRun);
+        ((ModelImpl) changed.getDefinitions().get("Error")).property("code", new IntegerProperty());
+
+        client.updateApi("abc123", changed, new SwaggerParser().parse(PETS_SWAGGER));
+
+        verify(pets, never()).getMethodByHttpMethod("GET");
+        verify(get, never()).updateMethod(any());
+        verify(pets).getMethodByHttpMethod("POST");
+        verify(pet, never()).updateModel(any());
+        verify(error).updateModel(argThat(new LambdaMatcher<>(
+                pd -> pd.getPatchOperations().stream().anyMatch(op -> op.getValue().contains("code")))));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("Error", "Pet")), api.getModelNames());
+    }
+
+    @Test
+    public void testUpdateApi_scoped_snapshotKeepsOutOfScope() {
+        MockRestApi api = new MockRestApi(apiGateway, "abc123");
+        ApiSnapshotStore store = new ApiSnapshotStore(Files.createTempDir());
+        client.snapshotStore = store;
+        api.addPath("/toys", "GET");
+        api.addModel("Toy", "{}");
+
+        // the first update lists the api, recording what is out of scope as it is
+        client.updateApi("abc123", new SwaggerParser().parse(PETS_SWAGGER), new ImportScope(Collections.singletonList("/pets"), null, null));
+
+        ApiSnapshot listed = store.load("abc123").get();
+        Assert.assertEquals(Collections.singletonMap("GET", ""), listed.getResources().get("/toys").getMethods());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("GET", "POST")), listed.getResources().get("/pets").getMethods().keySet());
+        Assert.assertFalse(listed.getResources().get("/pets").getMethods().containsValue(""));
+        Assert.assertTrue(listed.getModels().containsKey("Toy"));
+
+        // the second update plans from the snapshot, out of scope resources and models are carried over
+        Swagger removed = new SwaggerParser().parse(PETS_SWAGGER);
+        removed.getPath("/pets").setGet(null);
+        client.updateApi("abc123", removed, new ImportScope(Collections.singletonList("/pets"), null, null));
+
+        ApiSnapshot planned = store.load("abc123").get();
+        Assert.assertEquals(Collections.singleton("POST"), api.getMethods("/pets"));
+        Assert.assertEquals(Collections.singleton("GET"), api.getMethods("/toys"));
+        Assert.assertEquals(Collections.singletonMap("GET", ""), planned.getResources().get("/toys").getMethods());
+        Assert.assertEquals(Collections.singleton("POST"), planned.getResources().get("/pets").getMethods().keySet());
+        Assert.assertTrue(planned.getModels().containsKey("Toy"));
+        Assert.assertTrue(api.getModelNames().contains("Toy"));
+    }
+
+    @Test
+    public void testUpdateIntegration_targetUnchanged() throws IOException {
+        Method method = mock(Method.class);
+        Integration existing = mockIntegration();
+        IntegrationResponse ok = mockIntegrationResponse(null, "{}");
+        IntegrationResponse error = mockIntegrationResponse(".*error.*", null);
+        when(existing.getIntegrationResponses()).thenReturn(new HashMap<>(ImmutableMap.of("200", ok, "500", error)));
+        when(existing.updateIntegration(any())).thenReturn(existing);
+        when(method.getMethodIntegration()).thenReturn(existing);
+
+        client.updateIntegration(method, integrationExtension("http://example.com/pets", "{\"application/json\":\"{\\\"limit\\\": 10}\"}",
+                "{\"default\":{\"statusCode\":\"200\",\"responseTemplates\":{\"application/json\":\"{}\"}},"
+                        + "\"4\\\\d{2}\":{\"statusCode\":\"400\"}}"));
+
+        // only the changed template is patched, the unchanged response is kept and the stale one deleted
+        ArgumentCaptor<PatchDocument> patch = ArgumentCaptor.forClass(PatchDocument.class);
+        verify(existing).updateIntegration(patch.capture());
+        Assert.assertEquals(1, patch.getValue().getPatchOperations().size());
+        assertOperation(patch.getValue().getPatchOperations().get(0), "replace", "/requestTemplates/application~1json", "{\"limit\": 10}");
+
+        verify(method, never()).putIntegration(any());
+        verify(existing, never()).putIntegrationResponse(any(), eq("200"));
+        verify(existing).putIntegrationResponse(argThat(new LambdaMatcher<>(i -> "4\\d{2}".equals(i.getSelectionPattern()))), eq("400"));
+        verify(ok, never()).deleteIntegrationResponse();
+        verify(error).deleteIntegrationResponse();
+    }
+
+    @Test
+    public void testUpdateIntegration_targetChanged() throws IOException {
+        Method method = mock(Method.class);
+        Integration existing = mockIntegration();
+        Integration created = mock(Integration.class);
+        when(method.getMethodIntegration()).thenReturn(existing);
+        when(method.putIntegration(any())).thenReturn(created);
+
+        client.updateIntegration(method, integrationExtension("http://example.com/v2/pets", "{\"application/json\":\"{}\"}",
+                "{\"default\":{\"statusCode\":\"200\"}}"));
+
+        // the whole integration is put again along with its responses
+        verify(method).putIntegration(argThat(new LambdaMatcher<>(i -> i.getUri().equals("http://example.com/v2/pets")
+                && i.getRequestParameters().equals(Collections.singletonMap("integration.request.header.x-id", "method.request.header.id")))));
+        verify(created).putIntegrationResponse(any(), eq("200"));
+        verify(existing, never()).updateIntegration(any());
+    }
+
+    @Test
+    public void testUpdateMethodParameters_patchesChanged() {
+        Method method = mock(Method.class);
+        when(method.getRequestParameters()).thenReturn(ImmutableMap.of(
+                "method.request.querystring.limit", true, "method.request.querystring.offset", false, "method.request.header.id", false));
+
+        QueryParameter limit = new QueryParameter().name("limit");
+        limit.setRequired(true);
+        HeaderParameter id = new HeaderParameter().name("id");
+        id.setRequired(true);
+        QueryParameter sort = new QueryParameter().name("sort");
+
+        client.updateMethodParameters(mock(RestApi.class), method, Arrays.asList(limit, id, sort));
+
+        ArgumentCaptor<PatchDocument> patch = ArgumentCaptor.forClass(PatchDocument.class);
+        verify(method).updateMethod(patch.capture());
+        List<PatchOperation> ops = patch.getValue().getPatchOperations();
+        Assert.assertEquals(ops.toString(), 3, ops.size());
+        assertOperation(ops.get(0), "remove", "/requestParameters/method.request.querystring.offset", null);
+        Assert.assertTrue(ops.toString(), ops.stream().anyMatch(op -> op.getOp().equals("replace")
+                && op.getPath().equals("/requestParameters/method.request.header.id") && op.getValue().equals("true")));
+        Assert.assertTrue(ops.toString(), ops.stream().anyMatch(op -> op.getOp().equals("add")
+                && op.getPath().equals("/requestParameters/method.request.querystring.sort") && op.getValue().equals("false")));
+    }
+
+    // an http integration of GET http://example.com/pets, with one request parameter and one request template
+    private Integration mockIntegration() {
+        Integration integration = mock(Integration.class);
+        when(integration.getType()).thenReturn("HTTP");
+        when(integration.getUri()).thenReturn("http://example.com/pets");
+        when(integration.getHttpMethod()).thenReturn("GET");
+        when(integration.getRequestParameters()).thenReturn(
+                Collections.singletonMap("integration.request.header.x-id", "method.request.header.id"));
+        when(integration.getRequestTemplates()).thenReturn(Collections.singletonMap("application/json", "{}"));
+        return integration;
+    }
+
+    private IntegrationResponse mockIntegrationResponse(String selectionPattern, String template) {
+        IntegrationResponse response = mock(IntegrationResponse.class);
+        when(response.getSelectionPattern()).thenReturn(selectionPattern);
+        when(response.getResponseTemplates()).thenReturn(template == null ? null : Collections.singletonMap("application/json", template));
+        return response;
+    }
+
+    private Map<String, Object> integrationExtension(String uri, String requestTemplates, String responses) throws IOException {
+        return Collections.singletonMap("x-amazon-apigateway-integration", Json.mapper().readTree(
+                "{\"type\":\"http\",\"uri\":\"" + uri + "\",\"httpMethod\":\"GET\","
+                        + "\"requestParameters\":{\"integration.request.header.x-id\":\"method.request.header.id\"},"
+                        + "\"requestTemplates\":" + requestTemplates + ",\"responses\":" + responses + "}"));
+    }
+
+    private void assertOperation(PatchOperation op, String type, String path, String value) {
+        Assert.assertEquals(type, op.getOp());
+        Assert.assertEquals(path, op.getPath());
+        Assert.assertEquals(value, op.getValue());
+    }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ApiSnapshotStoreTest {
+
+    private ApiSnapshotStore store;
+
+    @Before
+    public void setUp() {
+        File dir = Files.createTempDir();
+        dir.deleteOnExit();
+        store = new ApiSnapshotStore(new File(dir, "snapshots"));
+    }
+
+    @Test
+    public void testSaveLoad_roundTrip() {
+        ApiSnapshot snapshot = new ApiSnapshot("abc123");
+        snapshot.putResource("/", "root", null);
+        snapshot.putResource("/pets", "r1", "root").getMethods().put("GET", "fp1");
+        snapshot.getModels().put("Pet", "fp2");
+        snapshot.getModels().put("GeneratedModel", null);
+
+        store.save(snapshot);
+        ApiSnapshot loaded = store.load("abc123").get();
+
+        assertEquals("abc123", loaded.getApiId());
+        assertEquals("r1", loaded.getResources().get("/pets").getId());
+        assertEquals("root", loaded.getResources().get("/pets").getParentId());
+        assertEquals("fp1", loaded.getResources().get("/pets").getMethods().get("GET"));
+        assertEquals("fp2", loaded.getModels().get("Pet"));
+        assertNull(loaded.getModels().get("GeneratedModel"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        store.save(new ApiSnapshot("abc123"));
+        store.invalidate("abc123");
+
+        assertFalse(store.load("abc123").isPresent());
+    }
+
+    @Test
+    public void testFingerprint_separatesValues() {
+        assertEquals(ApiSnapshot.fingerprint("a", "b"), ApiSnapshot.fingerprint("a", "b"));
+        assertFalse(ApiSnapshot.fingerprint("ab", "c").equals(ApiSnapshot.fingerprint("a", "bc")));
+    }
+
+}
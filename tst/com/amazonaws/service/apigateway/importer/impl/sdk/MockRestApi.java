@@ -0,0 +1,256 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.amazonaws.services.apigateway.model.CreateModelInput;
+import com.amazonaws.services.apigateway.model.CreateResourceInput;
+import com.amazonaws.services.apigateway.model.Integration;
+import com.amazonaws.services.apigateway.model.Method;
+import com.amazonaws.services.apigateway.model.MethodResponse;
+import com.amazonaws.services.apigateway.model.Model;
+import com.amazonaws.services.apigateway.model.Models;
+import com.amazonaws.services.apigateway.model.NotFoundException;
+import com.amazonaws.services.apigateway.model.PutMethodInput;
+import com.amazonaws.services.apigateway.model.Resource;
+import com.amazonaws.services.apigateway.model.Resources;
+import com.amazonaws.services.apigateway.model.RestApi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mocked api keeping its resources, methods and models in memory, so an importer can be run against it end to end.
+ * The requests made by the importer can be verified on the mocks it hands out
+ */
+public class MockRestApi {
+    private final RestApi api = mock(RestApi.class);
+
+    // resources by id, methods by resource id and upper case http method
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
+    private final Map<String, Map<String, Method>> methods = new HashMap<>();
+    private final Map<String, Model> models = new LinkedHashMap<>();
+    private int nextId;
+
+    public MockRestApi(ApiGateway client, String id) {
+        when(api.getId()).thenReturn(id);
+        when(api.getResources()).thenAnswer(i -> listResources());
+        when(api.getResourceById(any())).thenAnswer(i -> getResourceById((String) i.getArguments()[0]));
+        when(api.getModels()).thenAnswer(i -> listModels());
+        when(api.getModelByName(any())).thenAnswer(i -> getModel((String) i.getArguments()[0]));
+        when(api.createModel(any())).thenAnswer(i -> {
+            final CreateModelInput input = (CreateModelInput) i.getArguments()[0];
+            return addModel(input.getName(), input.getSchema());
+        });
+
+        when(client.getRestApiById(id)).thenReturn(api);
+        when(client.createRestApi(any())).thenReturn(api);
+
+        addResource(null, "/");
+    }
+
+    public RestApi getRestApi() {
+        return api;
+    }
+
+    /**
+     * Add a resource and any missing ancestors, along with methods
+     */
+    public synchronized Resource addPath(String path, String... httpMethods) {
+        Resource resource = getResource("/");
+        String current = "";
+
+        for (String part : path.substring(1).split("/")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            current = current + "/" + part;
+            resource = resources.containsKey(getId(current)) ? getResource(current) : addResource(resource.getId(), current);
+        }
+
+        for (String httpMethod : httpMethods) {
+            putMethod(resource.getId(), new PutMethodInput(), httpMethod);
+        }
+
+        return resource;
+    }
+
+    public synchronized Resource getResource(String path) {
+        return resources.get(getId(path));
+    }
+
+    public synchronized Set<String> getPaths() {
+        final Set<String> paths = new TreeSet<>();
+        resources.values().forEach(r -> paths.add(r.getPath()));
+        return paths;
+    }
+
+    /**
+     * @return upper case http methods of the resource at a path
+     */
+    public synchronized Set<String> getMethods(String path) {
+        final Set<String> result = new TreeSet<>();
+        if (methods.containsKey(getId(path))) {
+            result.addAll(methods.get(getId(path)).keySet());
+        }
+        return result;
+    }
+
+    public synchronized Method getMethod(String path, String httpMethod) {
+        return methods.get(getId(path)).get(httpMethod.toUpperCase());
+    }
+
+    public synchronized Model addModel(String name, String schema) {
+        final Model model = mock(Model.class);
+        when(model.getName()).thenReturn(name);
+        when(model.getSchema()).thenReturn(schema);
+        when(model.updateModel(any())).thenReturn(model);
+        doAnswer(i -> {
+            synchronized (this) {
+                models.remove(name);
+            }
+            return null;
+        }).when(model).deleteModel();
+
+        models.put(name, model);
+        return model;
+    }
+
+    public synchronized Model getModel(String name) {
+        if (!models.containsKey(name)) {
+            throw new NotFoundException("Model " + name + " not found");
+        }
+        return models.get(name);
+    }
+
+    public synchronized Set<String> getModelNames() {
+        return new TreeSet<>(models.keySet());
+    }
+
+    // ids are derived from the path, so a resource deleted and created again gets a new mock with the same id
+    private String getId(String path) {
+        return "id" + path;
+    }
+
+    private synchronized Resource addResource(String parentId, String path) {
+        final Resource resource = mock(Resource.class);
+        final String id = getId(path);
+
+        when(resource.getId()).thenReturn(id);
+        when(resource.getParentId()).thenReturn(parentId);
+        when(resource.getPath()).thenReturn(path);
+        when(resource.getPathPart()).thenReturn(parentId == null ? null : path.substring(path.lastIndexOf('/') + 1));
+        when(resource._isLinkAvailable("resource:create-child")).thenReturn(true);
+        when(resource._isLinkAvailable("resource:delete")).thenReturn(parentId != null);
+        when(resource.createResource(any())).thenAnswer(i -> {
+            final String part = ((CreateResourceInput) i.getArguments()[0]).getPathPart();
+            return asCreated(addResource(id, (parentId == null ? "" : path) + "/" + part));
+        });
+        when(resource.getResourceMethods()).thenAnswer(i -> {
+            synchronized (this) {
+                return new HashMap<>(methods.getOrDefault(id, new HashMap<>()));
+            }
+        });
+        when(resource.putMethod(any(), any())).thenAnswer(
+                i -> putMethod(id, (PutMethodInput) i.getArguments()[0], (String) i.getArguments()[1]));
+        when(resource.getMethodByHttpMethod(any())).thenAnswer(i -> {
+            synchronized (this) {
+                final Method method = methods.getOrDefault(id, new HashMap<>()).get(((String) i.getArguments()[0]).toUpperCase());
+                if (method == null) {
+                    throw new NotFoundException("Method not found");
+                }
+                return method;
+            }
+        });
+        doAnswer(i -> {
+            deleteResource(path);
+            return null;
+        }).when(resource).deleteResource();
+
+        resources.put(id, resource);
+        return resource;
+    }
+
+    // like the service, a newly created resource is returned without its methods embedded, unlike a listed one
+    private Resource asCreated(Resource resource) {
+        final Resource created = mock(Resource.class, delegatesTo(resource));
+        doReturn(null).when(created).getResourceMethods();
+        return created;
+    }
+
+    private synchronized void deleteResource(String path) {
+        new ArrayList<>(resources.values()).stream()
+                .filter(r -> r.getPath().equals(path) || r.getPath().startsWith(path + "/"))
+                .forEach(r -> {
+                    resources.remove(r.getId());
+                    methods.remove(r.getId());
+                });
+    }
+
+    private synchronized Method putMethod(String resourceId, PutMethodInput input, String httpMethod) {
+        final Method method = mock(Method.class);
+        final Integration integration = mock(Integration.class);
+
+        when(method.getHttpMethod()).thenReturn(httpMethod.toUpperCase());
+        when(method.getRequestParameters()).thenReturn(input.getRequestParameters());
+        when(method.getRequestModels()).thenReturn(input.getRequestModels());
+        when(method.updateMethod(any())).thenReturn(method);
+        when(method.getMethodResponses()).thenReturn(new HashMap<>());
+        when(method.putMethodResponse(any(), any())).thenAnswer(i -> mock(MethodResponse.class));
+        when(method.putIntegration(any())).thenReturn(integration);
+        doAnswer(i -> {
+            synchronized (this) {
+                methods.get(resourceId).remove(httpMethod.toUpperCase());
+            }
+            return null;
+        }).when(method).deleteMethod();
+
+        methods.computeIfAbsent(resourceId, id -> new HashMap<>()).put(httpMethod.toUpperCase(), method);
+        return method;
+    }
+
+    private synchronized Resource getResourceById(String id) {
+        if (!resources.containsKey(id)) {
+            throw new NotFoundException("Resource " + id + " not found");
+        }
+        return resources.get(id);
+    }
+
+    private synchronized Resources listResources() {
+        final List<Resource> items = new ArrayList<>(resources.values());
+        final Resources page = mock(Resources.class);
+        when(page.getItem()).thenReturn(items);
+        return page;
+    }
+
+    private synchronized Models listModels() {
+        final List<Model> items = new ArrayList<>(models.values());
+        final Models page = mock(Models.class);
+        when(page.getItem()).thenReturn(items);
+        return page;
+    }
+}
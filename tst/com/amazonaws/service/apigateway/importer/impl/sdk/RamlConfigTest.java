@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.services.apigateway.model.IntegrationType;
+import com.amazonaws.util.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RamlConfigTest {
+
+    @Test
+    public void testParse() throws Exception {
+        RamlConfig config = RamlConfig.parse(new JSONObject(IOUtils.toString(getClass().getResourceAsStream("/raml/apigateway.json"))));
+
+        assertEquals(Collections.emptyList(), config.getErrors());
+        assertEquals(Collections.emptyList(), config.getWarnings());
+        assertEquals("AWS_IAM", config.getAuthorizationType("/child", "GET"));
+        assertEquals("NONE", config.getAuthorizationType("/child", "POST"));
+        assertEquals(IntegrationType.AWS, config.getIntegration("/child", "GET").get().getType());
+        assertEquals(2, config.getIntegration("/child", "GET").get().getResponses().size());
+
+        // the decoded config is comparable
+        assertEquals(config.getMethod("/child", "get").get(),
+                     RamlConfig.parse(new JSONObject(IOUtils.toString(getClass().getResourceAsStream("/raml/apigateway.json"))))
+                             .getMethod("/child", "get").get());
+    }
+
+    @Test
+    public void testParse_missing() {
+        assertEquals("NONE", RamlConfig.empty().getAuthorizationType("/child", "get"));
+        assertFalse(RamlConfig.empty().getIntegration("/child", "get").isPresent());
+        assertFalse(RamlConfig.parse(null).getMethod("/child", "get").isPresent());
+    }
+
+    @Test
+    public void testParse_problemsReportedUpFront() throws Exception {
+        RamlConfig config = RamlConfig.parse(new JSONObject("{\"/a\": {" +
+                "\"get\": {\"auth\": {\"type\": \"aws_iam\"}, \"integration\": {\"type\": \"lambda\", \"uri\": \"arn\"}}," +
+                "\"fetch\": {}," +
+                "\"post\": {\"integration\": {\"type\": \"mock\", \"uri\": \"\", \"timeout\": 5}}}}"));
+
+        assertEquals(Collections.singletonList(
+                "GET /a: unknown integration type 'lambda', expected one of [HTTP, AWS, MOCK]"), config.getErrors());
+        assertTrue(config.getWarnings().containsAll(Arrays.asList(
+                "FETCH /a: unknown method", "POST /a integration: unknown key 'timeout'")));
+        assertEquals("AWS_IAM", config.getAuthorizationType("/a", "get"));
+        assertFalse(config.getIntegration("/a", "get").isPresent());
+        assertTrue(config.getIntegration("/a", "post").isPresent());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RamlSchemaRegistryTest {
+
+    @Test
+    public void testCanonicalize() {
+        RamlSchemaRegistry registry = new RamlSchemaRegistry();
+
+        RamlSchemaRegistry.Schema json = registry.canonicalize("{\n  \"type\": \"object\",\n  \"properties\": {}\n}\n");
+
+        assertEquals("{\"properties\":{},\"type\":\"object\"}", json.getContent());
+        assertEquals("application/json", json.getContentType().get());
+        assertEquals(json.getHash(), registry.canonicalize("{\"type\":\"object\", \"properties\":{}}").getHash());
+        assertTrue(json.getModelName().matches("model[0-9a-f]{32}"));
+
+        assertEquals("text/xml", registry.canonicalize("<xs:schema/>\n").getContentType().get());
+        assertFalse(registry.canonicalize("plain").getContentType().isPresent());
+    }
+
+    @Test
+    public void testGetModelName_createsEachSchemaOnce() {
+        RamlSchemaRegistry registry = new RamlSchemaRegistry();
+        AtomicInteger created = new AtomicInteger();
+
+        String first = registry.getModelName("{\"a\": 1, \"b\": 2}", s -> { created.incrementAndGet(); return s.getModelName(); });
+        String second = registry.getModelName("{\n  \"b\": 2,\n  \"a\": 1\n}", s -> { created.incrementAndGet(); return s.getModelName(); });
+
+        assertEquals(first, second);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testGetModelName_concurrentCallersCreateOnce() throws Exception {
+        RamlSchemaRegistry registry = new RamlSchemaRegistry();
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<String>> names = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                names.add(pool.submit(() -> registry.getModelName("{\"type\": \"object\"}", s -> {
+                    created.incrementAndGet();
+                    return s.getModelName();
+                })));
+            }
+            for (Future<String> name : names) {
+                assertEquals(names.get(0).get(), name.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testGetModelName_inlineCopyOfNamedSchema() {
+        RamlSchemaRegistry registry = new RamlSchemaRegistry();
+        registry.registerNamed("Product", "{\"type\": \"object\"}");
+        registry.addExistingModels(Collections.singletonList("Product"));
+
+        assertEquals("Product", registry.getModelName("{ \"type\" : \"object\" }", s -> { throw new AssertionError(); }));
+        assertTrue(registry.exists("Product"));
+    }
+}
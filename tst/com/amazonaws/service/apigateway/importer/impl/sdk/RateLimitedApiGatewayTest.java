@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.impl.sdk;
+
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.services.apigateway.model.ApiGateway;
+import com.amazonaws.services.apigateway.model.NotFoundException;
+import com.amazonaws.services.apigateway.model.Resource;
+import com.amazonaws.services.apigateway.model.Resources;
+import com.amazonaws.services.apigateway.model.RestApi;
+import com.google.common.util.concurrent.RateLimiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createPatchDocument;
+import static com.amazonaws.service.apigateway.importer.util.PatchUtils.createReplaceOperation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RateLimitedApiGatewayTest {
+
+    private ApiGateway client;
+    private RestApi api;
+    private Resource resource;
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void setUp() {
+        client = mock(ApiGateway.class);
+        api = mock(RestApi.class);
+        resource = mock(Resource.class);
+        rateLimiter = mock(RateLimiter.class);
+
+        Resources resources = mock(Resources.class);
+        when(client.getRestApiById("abc123")).thenReturn(api);
+        when(api.getId()).thenReturn("abc123");
+        when(api.getResources()).thenReturn(resources);
+        when(resources.getItem()).thenReturn(Arrays.asList(resource));
+        when(resource.getPath()).thenReturn("/pets");
+    }
+
+    @Test
+    public void testWrap_limitsRequestsOnly() {
+        RestApi wrapped = RateLimitedApiGateway.wrap(client, rateLimiter).getRestApiById("abc123");
+
+        assertEquals("abc123", wrapped.getId());
+        verify(rateLimiter, times(1)).acquire();
+
+        // following the item relation may load each item
+        Resource item = wrapped.getResources().getItem().get(0);
+
+        assertTrue(Proxy.isProxyClass(item.getClass()));
+        assertEquals("/pets", item.getPath());
+        verify(rateLimiter, times(3)).acquire();
+
+        item.deleteResource();
+
+        verify(rateLimiter, times(4)).acquire();
+        verify(resource).deleteResource();
+    }
+
+    @Test
+    public void testWrap_countsRequests() {
+        RequestStats stats = new RequestStats();
+        RestApi wrapped = RateLimitedApiGateway.wrap(client, null, stats).getRestApiById("abc123");
+
+        assertEquals("abc123", wrapped.getId());
+        assertEquals(1, stats.getRequests());
+        assertEquals(0, stats.getRequestBytes());
+
+        wrapped.getResources().getItem().get(0).updateResource(createPatchDocument(createReplaceOperation("/pathPart", "pets")));
+
+        assertEquals(4, stats.getRequests());
+        assertTrue(stats.getRequestBytes() > 0);
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testWrap_propagatesServiceExceptions() {
+        when(client.getRestApiById("missing")).thenThrow(new NotFoundException("missing"));
+
+        RateLimitedApiGateway.wrap(client, rateLimiter).getRestApiById("missing");
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.server;
+
+import com.amazonaws.service.apigateway.importer.RequestStats;
+import com.amazonaws.service.apigateway.importer.batch.BatchImporter;
+import com.amazonaws.service.apigateway.importer.batch.ImportJob;
+import com.amazonaws.service.apigateway.importer.batch.ImportJobResult;
+import com.google.common.io.Files;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ImportServerTest {
+
+    private ImportServer server;
+    private BatchImporter importer;
+    private JobLogAppender appender;
+
+    @Before
+    public void setUp() throws Exception {
+        importer = mock(BatchImporter.class);
+
+        // run jobs synchronously
+        when(importer.submit(any(Supplier.class))).thenAnswer(
+                invocation -> CompletableFuture.completedFuture(((Supplier) invocation.getArguments()[0]).get()));
+
+        appender = new JobLogAppender(new PatternLayout("%p - %m%n"));
+        Logger.getRootLogger().addAppender(appender);
+
+        server = new ImportServer(importer, Files.createTempDir());
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        Logger.getRootLogger().removeAppender(appender);
+    }
+
+    @Test
+    public void testSubmit_recordsStatusAndLog() throws Exception {
+        ImportJob job = createJob();
+        when(importer.importApi(job)).thenAnswer(invocation -> {
+            LogFactory.getLog(ImportServerTest.class).info("importing petstore");
+            return ImportJobResult.succeeded(job, "us-east-1", "abc123", 10, new RequestStats());
+        });
+
+        ImportServer.JobState state = server.submit(job);
+
+        assertEquals(ImportServer.Status.SUCCEEDED, server.getJob(state.getId()).get().getStatus());
+        assertEquals("abc123", state.getResult().getApiId());
+
+        String status = get("/jobs/" + state.getId());
+        assertTrue(status.contains("\"status\":\"SUCCEEDED\""));
+
+        String log = get("/jobs/" + state.getId() + "/log");
+        assertTrue(log.contains("importing petstore"));
+    }
+
+    @Test
+    public void testSubmit_recordsLogOfPoolThreads() throws Exception {
+        ImportJob job = createJob();
+        when(importer.importApi(job)).thenAnswer(invocation -> {
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                pool.submit(() -> LogFactory.getLog(ImportServerTest.class).info("deleting in parallel")).get();
+            } finally {
+                pool.shutdown();
+            }
+            return ImportJobResult.succeeded(job, "us-east-1", "abc123", 10, new RequestStats());
+        });
+
+        ImportServer.JobState state = server.submit(job);
+
+        String log = get("/jobs/" + state.getId() + "/log");
+        assertTrue(log.contains("deleting in parallel"));
+    }
+
+    @Test
+    public void testGet_unknownJob() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) getUrl("/jobs/unknown").openConnection();
+
+        assertEquals(404, connection.getResponseCode());
+    }
+
+    private ImportJob createJob() throws Exception {
+        ImportJob job = new ImportJob();
+        job.setFile(Paths.get(getClass().getResource("/swagger/petstore.json").toURI()).toString());
+        job.setCreate(true);
+        return job;
+    }
+
+    private String get(String path) throws Exception {
+        return IOUtils.toString(getUrl(path).openStream());
+    }
+
+    private URL getUrl(String path) throws Exception {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.util;
+
+import com.amazonaws.services.apigateway.model.PatchOperation;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PatchUtilsTest {
+
+    @Test
+    public void testCreateMapOperations() {
+        List<PatchOperation> ops = PatchUtils.createMapOperations("/requestTemplates",
+                ImmutableMap.of("application/json", "{}", "text/xml", "<a/>", "text/plain", "same"),
+                ImmutableMap.of("application/json", "{\"a\": 1}", "text/plain", "same", "text/html", "<p/>"));
+
+        assertEquals(ops.toString(), 3, ops.size());
+        assertOperation(ops.get(0), "remove", "/requestTemplates/text~1xml", null);
+        assertOperation(ops.get(1), "replace", "/requestTemplates/application~1json", "{\"a\": 1}");
+        assertOperation(ops.get(2), "add", "/requestTemplates/text~1html", "<p/>");
+    }
+
+    @Test
+    public void testCreateMapOperations_valuesComparedAsStrings() {
+        List<PatchOperation> ops = PatchUtils.createMapOperations("/requestParameters",
+                ImmutableMap.of("method.request.path.id", true, "method.request.querystring.q", "false"),
+                ImmutableMap.of("method.request.path.id", "true", "method.request.querystring.q", true));
+
+        assertEquals(ops.toString(), 1, ops.size());
+        assertOperation(ops.get(0), "replace", "/requestParameters/method.request.querystring.q", "true");
+    }
+
+    @Test
+    public void testCreateMapOperations_nullMaps() {
+        assertTrue(PatchUtils.createMapOperations("/requestParameters", null, null).isEmpty());
+
+        List<PatchOperation> removed = PatchUtils.createMapOperations("/requestParameters",
+                Collections.singletonMap("method.request.header.x", false), null);
+        assertEquals(1, removed.size());
+        assertOperation(removed.get(0), "remove", "/requestParameters/method.request.header.x", null);
+
+        List<PatchOperation> added = PatchUtils.createMapOperations("/requestParameters",
+                null, Collections.singletonMap("method.request.header.x", false));
+        assertEquals(1, added.size());
+        assertOperation(added.get(0), "add", "/requestParameters/method.request.header.x", "false");
+    }
+
+    private void assertOperation(PatchOperation op, String type, String path, String value) {
+        assertEquals(type, op.getOp());
+        assertEquals(path, op.getPath());
+        assertEquals(value, op.getValue());
+    }
+}
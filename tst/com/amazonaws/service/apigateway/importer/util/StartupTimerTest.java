@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.service.apigateway.importer.util;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StartupTimerTest {
+
+    @Test
+    public void testTime_delegates() {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        AWSCredentialsProvider provider = mock(AWSCredentialsProvider.class);
+        when(provider.getCredentials()).thenReturn(credentials);
+
+        StartupTimer timer = new StartupTimer();
+        timer.setEnabled(true);
+        timer.mark("parse arguments");
+        AWSCredentialsProvider timed = timer.time(provider);
+
+        assertSame(credentials, timed.getCredentials());
+        assertSame(credentials, timed.getCredentials());
+        timed.refresh();
+
+        verify(provider, times(2)).getCredentials();
+        verify(provider).refresh();
+    }
+
+    @Test
+    public void testTime_onlyFirstCallTimed() throws Exception {
+        AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        AWSCredentialsProvider provider = mock(AWSCredentialsProvider.class);
+        CountDownLatch resolving = new CountDownLatch(1);
+        CountDownLatch resolved = new CountDownLatch(1);
+        when(provider.getCredentials()).thenAnswer(i -> {
+            if (resolving.getCount() > 0) {
+                resolving.countDown();
+                resolved.await();
+            }
+            return credentials;
+        });
+
+        StartupTimer timer = new StartupTimer();
+        AWSCredentialsProvider timed = timer.time(provider);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<AWSCredentials> firstCall = pool.submit(timed::getCredentials);
+            resolving.await();
+
+            // the first call is still resolving, the others don't wait for it
+            assertSame(credentials, timed.getCredentials());
+
+            resolved.countDown();
+            assertSame(credentials, firstCall.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}